@@ -3,6 +3,7 @@ plugins {
     war
     id("org.springframework.boot") version "3.5.0"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "me.dhan"
@@ -18,14 +19,98 @@ repositories {
     mavenCentral()
 }
 
+sourceSets {
+    create("loadTest") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+val loadTestImplementation: Configuration by configurations.getting {
+    extendsFrom(configurations.implementation.get())
+}
+
 dependencies {
     implementation("org.springframework.boot:spring-boot-starter-web")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
     implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.4.0")
     providedRuntime("org.springframework.boot:spring-boot-starter-tomcat")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    jmh("org.springframework:spring-test")
+    loadTestImplementation("org.hdrhistogram:HdrHistogram:2.2.2")
 }
 
 tasks.withType<Test> {
     useJUnitPlatform()
 }
+
+jmh {
+    warmupIterations = 3
+    iterations = 5
+    fork = 1
+    // Run a subset with e.g. ./gradlew jmh -Pjmh.includes=SigningBenchmark
+    providers.gradleProperty("jmh.includes").orNull?.let { includes = listOf(it) }
+    resultFormat = "JSON"
+}
+
+// Class data sharing: ./gradlew cdsArchive records the classes loaded during startup into an archive,
+// then ./gradlew bootRun -Pcds starts from it. The archive only matches the classpath it was built with.
+val cdsArchiveFile = layout.buildDirectory.file("cds/application.jsa")
+
+tasks.register<JavaExec>("cdsArchive") {
+    group = "build"
+    description = "Creates a CDS archive from a training run that exits right after the context refresh."
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass = "me.dhan.hmacdemo.HmacDemoApplication"
+    jvmArgs("-XX:ArchiveClassesAtExit=${cdsArchiveFile.get().asFile}", "-Dspring.context.exit=onRefresh")
+    outputs.file(cdsArchiveFile)
+    doFirst { cdsArchiveFile.get().asFile.parentFile.mkdirs() }
+}
+
+tasks.named<org.springframework.boot.gradle.tasks.run.BootRun>("bootRun") {
+    if (providers.gradleProperty("cds").isPresent) {
+        jvmArgs("-XX:SharedArchiveFile=${cdsArchiveFile.get().asFile}")
+    }
+}
+
+tasks.register<JavaExec>("threadModeBenchmark") {
+    group = "verification"
+    description = "Compares request throughput on platform threads and on virtual threads."
+    classpath = sourceSets["loadTest"].runtimeClasspath
+    mainClass = "me.dhan.hmacdemo.load.ThreadModeBenchmark"
+    args(
+        providers.gradleProperty("requests").getOrElse("20000"),
+        providers.gradleProperty("concurrency").getOrElse("1000")
+    )
+}
+
+// Options are passed as Gradle properties, e.g. ./gradlew loadGenerator -Prate=2000 -PbodySizes=64,65536
+tasks.register<JavaExec>("loadGenerator") {
+    group = "verification"
+    description = "Replays signed traffic against the application and reports latency percentiles and throughput."
+    classpath = sourceSets["loadTest"].runtimeClasspath
+    mainClass = "me.dhan.hmacdemo.load.LoadGenerator"
+    mapOf(
+        "duration" to "duration",
+        "warmup" to "warmup",
+        "rate" to "rate",
+        "concurrency" to "concurrency",
+        "getRatio" to "get-ratio",
+        "invalidRatio" to "invalid-ratio",
+        "bodySizes" to "body-sizes",
+        "replayEntries" to "replay-entries",
+        "output" to "output",
+        "url" to "url"
+    ).forEach { (property, option) ->
+        providers.gradleProperty(property).orNull?.let { args("--$option=$it") }
+    }
+}
+
+tasks.register<JavaExec>("replayStoreServer") {
+    group = "application"
+    description = "Runs the reference TCP replay store shared by several nodes."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "me.dhan.hmacdemo.security.TcpReplayStoreServer"
+    args(providers.gradleProperty("port").getOrElse("7070"))
+}
@@ -0,0 +1,66 @@
+plugins {
+    java
+    id("org.springframework.boot")
+    id("io.spring.dependency-management")
+}
+
+group = "me.dhan"
+version = "0.0.1-SNAPSHOT"
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
+}
+
+repositories {
+    mavenCentral()
+}
+
+sourceSets {
+    create("loadTest") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+val loadTestImplementation: Configuration by configurations.getting {
+    extendsFrom(configurations.implementation.get())
+}
+
+dependencies {
+    // Signer, key cache, replay protection, metrics and models of the servlet application, without its web stack
+    implementation(project(":")) {
+        exclude(group = "org.springframework.boot", module = "spring-boot-starter-web")
+        exclude(group = "org.springdoc")
+    }
+    implementation("org.springframework.boot:spring-boot-starter-webflux")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    testImplementation("org.springframework.boot:spring-boot-starter-test")
+    testImplementation("io.projectreactor:reactor-test")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+tasks.withType<Test> {
+    useJUnitPlatform()
+}
+
+// Runs the servlet and the reactive application one after the other in child JVMs limited to the same
+// number of processors and heap, and drives both with the same signed traffic
+tasks.register<JavaExec>("stackComparison") {
+    group = "verification"
+    description = "Compares request throughput of the servlet and the reactive application on equal hardware."
+    val servletClasspath = rootProject.the<SourceSetContainer>()["main"].runtimeClasspath
+    val reactiveClasspath = sourceSets.main.get().runtimeClasspath
+    dependsOn(servletClasspath, reactiveClasspath)
+    classpath = sourceSets["loadTest"].runtimeClasspath
+    mainClass = "me.dhan.hmacdemo.reactive.load.StackComparisonBenchmark"
+    jvmArgumentProviders.add(CommandLineArgumentProvider {
+        listOf("-Dservlet.classpath=${servletClasspath.asPath}", "-Dreactive.classpath=${reactiveClasspath.asPath}")
+    })
+    args(
+        providers.gradleProperty("requests").getOrElse("20000"),
+        providers.gradleProperty("concurrency").getOrElse("1000"),
+        providers.gradleProperty("cpus").getOrElse("2")
+    )
+}
@@ -0,0 +1,196 @@
+package me.dhan.hmacdemo.reactive.load;
+
+import me.dhan.hmacdemo.client.HmacApiClient;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Compares the servlet application, on Tomcat's platform thread pool and on virtual threads, with the
+ * reactive application on Netty.
+ * <p>
+ * Each server runs in its own JVM limited to the same number of processors and the same heap, so the
+ * comparison holds on equal hardware and the load generator in this JVM does not compete with the
+ * server for the processors it is allowed. Each server is warmed up and then driven with signed POST
+ * requests from virtual threads at a fixed concurrency. Besides throughput, the server's CPU time per
+ * thousand requests shows how much of the difference is cost rather than waiting. Every server gets
+ * the same replay cap, large enough for all requests to fit in one replay bucket, as requests over it
+ * would be rejected with 503. The run fails, naming the first failure, if any measured request did not
+ * get the expected 200 response. Usage:
+ * <pre>
+ * ./gradlew :reactive:stackComparison -Prequests=20000 -Pconcurrency=1000 -Pcpus=2
+ * </pre>
+ */
+public class StackComparisonBenchmark {
+
+    private static final String SECRET = "LoadTestSecretKey";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final int WARMUP_REQUESTS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int cpus = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+        List<Result> results = new ArrayList<>();
+        results.add(run("platform", "servlet.classpath", "me.dhan.hmacdemo.HmacDemoApplication",
+                List.of("--spring.threads.virtual.enabled=false", "--server.tomcat.accept-count=" + concurrency),
+                requests, concurrency, cpus));
+        results.add(run("virtual", "servlet.classpath", "me.dhan.hmacdemo.HmacDemoApplication",
+                List.of("--spring.threads.virtual.enabled=true", "--server.tomcat.accept-count=" + concurrency),
+                requests, concurrency, cpus));
+        results.add(run("reactive", "reactive.classpath", "me.dhan.hmacdemo.reactive.ReactiveHmacDemoApplication",
+                List.of(), requests, concurrency, cpus));
+
+        System.out.println();
+        System.out.printf("%-10s %10s %12s %10s %14s %18s%n",
+                "mode", "requests", "concurrency", "errors", "requests/sec", "cpu ms/1k requests");
+        results.forEach(result -> System.out.println(result.line()));
+        for (Result result : results) {
+            if (result.errors() > 0) {
+                throw new IllegalStateException(result.errors() + " " + result.mode() + " requests failed, so the"
+                        + " throughput is not comparable; first failure: " + result.firstError());
+            }
+        }
+    }
+
+    private static Result run(String mode, String classpathProperty, String mainClass, List<String> properties,
+                              int requests, int concurrency, int cpus) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>(List.of(
+                ProcessHandle.current().info().command().orElse("java"),
+                "-XX:ActiveProcessorCount=" + cpus,
+                "-Xms512m", "-Xmx512m",
+                "-cp", System.getProperty(classpathProperty),
+                mainClass,
+                "--server.port=" + port,
+                "--hmac.secret=" + SECRET,
+                "--hmac.warmup.enabled=false",
+                // Warm-up and measured requests all fit in one replay bucket
+                "--hmac.replay.max-entries-per-bucket=" + Math.max(65_536, requests + WARMUP_REQUESTS),
+                "--logging.level.root=WARN"));
+        command.addAll(properties);
+
+        Process server = new ProcessBuilder(command).inheritIO().start();
+        try {
+            String baseUrl = "http://localhost:" + port;
+            awaitHealthy(server, baseUrl);
+            try (HmacApiClient client = HmacApiClient.builder(baseUrl, SECRET)
+                    .virtualThreads()
+                    .printCurlCommands(false)
+                    .build()) {
+
+                drive(client, Math.min(requests, WARMUP_REQUESTS), concurrency, new AtomicReference<>());
+                AtomicReference<String> firstError = new AtomicReference<>();
+                long cpuStart = cpuNanos(server);
+                long start = System.nanoTime();
+                int errors = drive(client, requests, concurrency, firstError);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                double cpuMillisPerThousand = (cpuNanos(server) - cpuStart) / 1e6 / requests * 1_000;
+
+                return new Result(mode, String.format("%-10s %10d %12d %10d %14.1f %18.1f",
+                        mode, requests, concurrency, errors, requests / seconds, cpuMillisPerThousand),
+                        errors, firstError.get());
+            }
+        } finally {
+            server.destroy();
+            if (!server.waitFor(30, TimeUnit.SECONDS)) {
+                server.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * Polls the health endpoint until the server reports up.
+     */
+    private static void awaitHealthy(Process server, String baseUrl) throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health")).build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!server.isAlive()) {
+                throw new IllegalStateException("Server exited with status " + server.exitValue());
+            }
+            try {
+                if (http.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException("Server did not start within " + STARTUP_TIMEOUT);
+    }
+
+    private static long cpuNanos(Process server) {
+        return server.info().totalCpuDuration().map(Duration::toNanos).orElse(0L);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Sends the given number of requests with at most {@code concurrency} in flight.
+     *
+     * @param firstError Set to a description of the first failed request
+     * @return The number of failed requests
+     */
+    private static int drive(HmacApiClient client, int requests, int concurrency, AtomicReference<String> firstError)
+            throws Exception {
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicInteger errors = new AtomicInteger();
+        try (ExecutorService drivers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                int a = i;
+                inFlight.acquire();
+                futures.add(drivers.submit(() -> {
+                    try {
+                        int sum = client.sum(a, 1);
+                        if (sum != a + 1) {
+                            errors.incrementAndGet();
+                            firstError.compareAndSet(null, "sum of " + a + " and 1 was " + sum);
+                        }
+                    } catch (Exception e) {
+                        // Non-200 responses end up here, with the status in the message
+                        errors.incrementAndGet();
+                        firstError.compareAndSet(null, e.toString());
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return errors.get();
+    }
+
+    /**
+     * @param mode       Server the requests were sent to
+     * @param line       Row of the results table
+     * @param errors     Number of failed measured requests
+     * @param firstError Description of the first failed measured request, or null
+     */
+    private record Result(String mode, String line, int errors, String firstError) {
+    }
+}
@@ -0,0 +1,22 @@
+package me.dhan.hmacdemo.reactive;
+
+import me.dhan.hmacdemo.config.HmacKeyConfig;
+import me.dhan.hmacdemo.config.HmacMetricsConfig;
+import me.dhan.hmacdemo.config.HmacRouteConfig;
+import me.dhan.hmacdemo.config.ReplayStoreConfig;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+
+/**
+ * The demo API on WebFlux and Netty. Keys, metrics, routes and the shared replay store are configured
+ * exactly as in the servlet application, whose configuration classes are imported here.
+ */
+@SpringBootApplication
+@Import({HmacKeyConfig.class, HmacMetricsConfig.class, HmacRouteConfig.class, ReplayStoreConfig.class})
+public class ReactiveHmacDemoApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveHmacDemoApplication.class, args);
+    }
+}
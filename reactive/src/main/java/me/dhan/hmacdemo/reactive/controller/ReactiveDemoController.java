@@ -0,0 +1,62 @@
+package me.dhan.hmacdemo.reactive.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.dhan.hmacdemo.model.SumBatch;
+import me.dhan.hmacdemo.model.SumRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The sum endpoints of the servlet application's {@code DemoController}, on WebFlux.
+ * Request bodies arrive already verified and aggregated by the HMAC web filter.
+ */
+@RestController
+@RequestMapping("/api/demo")
+public class ReactiveDemoController {
+
+    private final JsonFactory jsonFactory;
+
+    public ReactiveDemoController(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @GetMapping("/sum")
+    public Mono<Integer> sum(@RequestParam("a") int a, @RequestParam("b") int b) {
+        return Mono.just(a + b);
+    }
+
+    @PostMapping("/sum")
+    public Mono<Integer> sumPost(@RequestBody Mono<SumRequest> request) {
+        return request.map(sum -> sum.getA() + sum.getB());
+    }
+
+    @PostMapping(value = "/sum/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<int[]> sumBatch(@RequestBody Mono<byte[]> body) {
+        return body.map(this::sumBatch);
+    }
+
+    private int[] sumBatch(byte[] body) {
+        // Parse pairs straight into primitive arrays instead of binding a List<SumRequest>
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return SumBatch.read(parser).sums();
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid batch: " + e.getOriginalMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
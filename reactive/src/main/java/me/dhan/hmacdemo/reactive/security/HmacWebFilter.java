@@ -0,0 +1,383 @@
+package me.dhan.hmacdemo.reactive.security;
+
+import io.micrometer.observation.Observation;
+import jakarta.annotation.PostConstruct;
+import me.dhan.hmacdemo.security.HmacHeaders;
+import me.dhan.hmacdemo.security.HmacKeyCache;
+import me.dhan.hmacdemo.security.HmacMetrics;
+import me.dhan.hmacdemo.security.HmacRejection;
+import me.dhan.hmacdemo.security.MacAlgorithm;
+import me.dhan.hmacdemo.security.ReplayCache;
+import me.dhan.hmacdemo.security.ReplayProtection;
+import me.dhan.hmacdemo.security.RejectionFormat;
+import me.dhan.hmacdemo.security.ReplayStore;
+import me.dhan.hmacdemo.security.RouteMatcher;
+import me.dhan.hmacdemo.security.RoutePolicy;
+import me.dhan.hmacdemo.security.VerificationSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Verifies HMAC-signed requests on WebFlux, accepting exactly what the servlet {@code HmacFilter} accepts.
+ * <p>
+ * The header checks, the signers and the {@link VerificationSession} are the servlet application's;
+ * only the I/O differs. Every check that needs only the headers runs first. The body is then fed to the
+ * signature buffer by buffer as Netty delivers it, and each buffer is copied into a single array sized
+ * from {@code Content-Length} and released right away, so no pooled buffer is held while the rest of
+ * the body is in flight and no event-loop thread waits for it. Once the signature checks out, the rest
+ * of the chain reads the verified array as the request body. The replay check against a shared store
+ * completes asynchronously as well.
+ * <p>
+ * Rate limiting and the verification cache of the servlet filter are not available here.
+ */
+@Component
+public class HmacWebFilter implements WebFilter {
+
+    private static final int DEFAULT_BODY_CAPACITY = 1024;
+    // A declared Content-Length is trusted for the first allocation only up to this size; larger bodies
+    // grow the buffer as they arrive, so a client cannot reserve memory it never sends
+    private static final int MAX_INITIAL_BODY_CAPACITY = 64 * 1024;
+    // The body is kept in one array, so no limit may exceed the largest array the JVM can allocate
+    private static final long MAX_BODY_BYTES = Integer.MAX_VALUE - 8;
+
+    private final HmacKeyCache keyCache;
+    private final HmacMetrics metrics;
+    private final ReplayStore replayStore;
+    private final RouteMatcher routes;
+
+    @Value("${hmac.default-key-id:default}")
+    private String defaultKeyId;
+
+    @Value("${hmac.body.max-size:10MB}")
+    private DataSize maxBodySize;
+
+    @Value("${hmac.reject.close-connection:false}")
+    private boolean closeConnectionOnRejection;
+
+    @Value("${hmac.reject.format:text}")
+    private RejectionFormat rejectionFormat = RejectionFormat.TEXT;
+
+    @Value("${hmac.replay.enabled:true}")
+    private boolean replayProtectionEnabled;
+
+    @Value("${hmac.replay.bucket-width:10s}")
+    private Duration replayBucketWidth;
+
+    @Value("${hmac.replay.max-entries-per-bucket:65536}")
+    private int replayMaxEntriesPerBucket;
+
+    @Value("${hmac.replay.skip-safe-methods:false}")
+    private boolean replaySkipSafeMethods;
+
+    @Value("${hmac.replay.store.timeout:100ms}")
+    private Duration replayStoreTimeout;
+
+    @Value("${hmac.replay.store.fail-open:false}")
+    private boolean replayStoreFailOpen;
+
+    @Value("${hmac.replay.store.max-batch-size:256}")
+    private int replayStoreMaxBatchSize;
+
+    @Value("${hmac.replay.store.max-in-flight-batches:4}")
+    private int replayStoreMaxInFlightBatches;
+
+    private ReplayProtection replayProtection;
+
+    public HmacWebFilter(HmacKeyCache keyCache, HmacMetrics metrics) {
+        this(keyCache, metrics, null, null);
+    }
+
+    /**
+     * @param replayStore Store shared by all nodes for replay protection, or null to protect this node only
+     * @param routes      Per-route policies, or null to require a signature on every path
+     */
+    @Autowired
+    public HmacWebFilter(HmacKeyCache keyCache, HmacMetrics metrics, @Nullable ReplayStore replayStore,
+                         @Nullable RouteMatcher routes) {
+        this.keyCache = keyCache;
+        this.metrics = metrics;
+        this.replayStore = replayStore;
+        this.routes = routes != null ? routes : RouteMatcher.EMPTY;
+    }
+
+    @PostConstruct
+    void initReplayCache() {
+        checkBodyLimit("hmac.body.max-size", maxBodySize);
+        for (RouteMatcher.Route route : routes.routes()) {
+            checkBodyLimit("max-body-size of route " + route.pattern(), route.policy().maxBodySize());
+        }
+        if (replayProtectionEnabled) {
+            ReplayCache nearCache = new ReplayCache(HmacHeaders.REPLAY_WINDOW, replayBucketWidth, replayMaxEntriesPerBucket);
+            replayProtection = replayStore == null
+                    ? new ReplayProtection(nearCache)
+                    : new ReplayProtection(nearCache, replayStore, replayStoreTimeout, replayStoreFailOpen,
+                            replayStoreMaxBatchSize, replayStoreMaxInFlightBatches, metrics);
+        }
+    }
+
+    private static void checkBodyLimit(String property, DataSize limit) {
+        if (limit != null && limit.toBytes() > MAX_BODY_BYTES) {
+            throw new IllegalArgumentException(property + " is " + limit
+                    + ", but the reactive filter keeps the body in memory and accepts at most " + MAX_BODY_BYTES + " bytes");
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getURI().getRawPath();
+        RoutePolicy route = routes.match(path);
+        if (route.exempt()) {
+            return chain.filter(exchange);
+        }
+
+        String method = request.getMethod().name();
+        HttpHeaders headers = request.getHeaders();
+        Observation observation = metrics.startVerification(method);
+
+        // Run every check that needs only the headers first, so a request that cannot be
+        // authentic is rejected without reading its body
+        String version = headers.getFirst(HmacHeaders.VERSION);
+        if (!HmacHeaders.isSupportedVersion(version)) {
+            return reject(exchange, HmacRejection.UNSUPPORTED_VERSION, null, observation);
+        }
+        boolean digestScheme = HmacHeaders.isDigestScheme(version);
+        if (route.bodyDigestRequired() && !digestScheme) {
+            return reject(exchange, HmacRejection.BODY_DIGEST_REQUIRED, null, observation);
+        }
+
+        MacAlgorithm algorithm = HmacHeaders.resolveAlgorithm(headers.getFirst(HmacHeaders.ALGORITHM));
+        if (algorithm == null) {
+            return reject(exchange, HmacRejection.UNSUPPORTED_ALGORITHM, null, observation);
+        }
+
+        String timestamp = headers.getFirst(HmacHeaders.TIMESTAMP);
+        if (!StringUtils.hasText(timestamp)) {
+            return reject(exchange, HmacRejection.MISSING_TIMESTAMP, null, observation);
+        }
+        if (!HmacHeaders.isValidTimestamp(timestamp)) {
+            return reject(exchange, HmacRejection.INVALID_TIMESTAMP, null, observation);
+        }
+
+        String hmacHeader = headers.getFirst(HmacHeaders.SIGNATURE);
+        if (!StringUtils.hasText(hmacHeader)) {
+            return reject(exchange, HmacRejection.MISSING_SIGNATURE, null, observation);
+        }
+
+        // Resolve the client's keys for the algorithm; requests without a key id use the default key
+        String keyId = headers.getFirst(HmacHeaders.KEY_ID);
+        if (!StringUtils.hasText(keyId)) {
+            keyId = defaultKeyId;
+        }
+        HmacKeyCache.ResolvedKeys keys = keyCache.resolve(keyId, algorithm);
+        if (keys == null) {
+            return keyCache.resolve(keyId) == null
+                    ? reject(exchange, HmacRejection.UNKNOWN_KEY_ID, null, observation)
+                    : reject(exchange, HmacRejection.ALGORITHM_NOT_ALLOWED, keyId, observation);
+        }
+
+        if (!HmacHeaders.isWellFormedSignature(hmacHeader, keys.current().macLength())) {
+            return reject(exchange, HmacRejection.MALFORMED_SIGNATURE, keys.keyId(), observation);
+        }
+
+        String bodyDigest = null;
+        if (digestScheme) {
+            bodyDigest = headers.getFirst(HmacHeaders.BODY_DIGEST);
+            if (!StringUtils.hasText(bodyDigest)) {
+                return reject(exchange, HmacRejection.MISSING_BODY_DIGEST, keys.keyId(), observation);
+            }
+            if (!HmacHeaders.isWellFormedBodyDigest(bodyDigest)) {
+                return reject(exchange, HmacRejection.MALFORMED_BODY_DIGEST, keys.keyId(), observation);
+            }
+        }
+
+        // Reject bodies that announce a size above the limit before reading anything
+        long maxBodyBytes = (route.maxBodySize() != null ? route.maxBodySize() : maxBodySize).toBytes();
+        long contentLength = headers.getContentLength();
+        if (contentLength > maxBodyBytes) {
+            return reject(exchange, HmacRejection.BODY_TOO_LARGE, keys.keyId(), observation);
+        }
+
+        long canonicalizationStart = System.nanoTime();
+        VerificationSession session = new VerificationSession(keys, method, path, request.getURI().getRawQuery(),
+                bodyDigest);
+        metrics.recordCanonicalization(System.nanoTime() - canonicalizationStart);
+
+        // With the body-digest scheme the signed envelope is complete already: check it before the body
+        if (digestScheme && session.verify(timestamp, hmacHeader) == null) {
+            session.close();
+            metrics.recordMac(session.algorithm(), session.macNanos());
+            return reject(exchange, HmacRejection.INVALID_SIGNATURE, keys.keyId(), observation);
+        }
+
+        boolean checkReplay = route.replayCheck() != null
+                ? route.replayCheck()
+                : !(replaySkipSafeMethods && ("GET".equals(method) || "HEAD".equals(method)));
+        VerifiedBody body = new VerifiedBody(contentLength > 0
+                ? (int) Math.min(contentLength, MAX_INITIAL_BODY_CAPACITY)
+                : DEFAULT_BODY_CAPACITY);
+        long readStart = System.nanoTime();
+        return request.getBody()
+                .doOnNext(buffer -> {
+                    try {
+                        body.append(buffer, session, maxBodyBytes);
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                })
+                .then(Mono.fromSupplier(() -> {
+                    metrics.recordBodyRead(System.nanoTime() - readStart - session.macNanos());
+                    return verify(session, timestamp, hmacHeader);
+                }))
+                .onErrorResume(error -> Mono.just(new Verdict(error instanceof BodyTooLargeException
+                        ? HmacRejection.BODY_TOO_LARGE
+                        : HmacRejection.BODY_READ_ERROR, 0)))
+                .doFinally(signal -> session.close())
+                .flatMap(verdict -> {
+                    if (verdict.rejection() != null) {
+                        return reject(exchange, verdict.rejection(), keys.keyId(), observation);
+                    }
+                    return acceptVerified(exchange, keys.keyId(), verdict.fingerprint(), timestamp, checkReplay,
+                            observation)
+                            .flatMap(rejection -> reject(exchange, rejection, keys.keyId(), observation))
+                            .switchIfEmpty(Mono.defer(() -> chain.filter(exchange.mutate()
+                                    .request(body.replaceBody(request, exchange.getResponse().bufferFactory()))
+                                    .build())));
+                });
+    }
+
+    /**
+     * Compares the signature header, already checked for format, with the signature computed over the body.
+     */
+    private Verdict verify(VerificationSession session, String timestamp, String hmacHeader) {
+        byte[] calculatedHmac = session.verify(timestamp, hmacHeader);
+        boolean bodyMatchesDigest = calculatedHmac != null && session.bodyMatchesDigest();
+        metrics.recordMac(session.algorithm(), session.macNanos());
+        if (calculatedHmac == null) {
+            return new Verdict(HmacRejection.INVALID_SIGNATURE, 0);
+        }
+        if (!bodyMatchesDigest) {
+            return new Verdict(HmacRejection.BODY_DIGEST_MISMATCH, 0);
+        }
+        // The MAC belongs to the session, which is closed before the replay check completes
+        return new Verdict(null, ReplayCache.fingerprint(calculatedHmac));
+    }
+
+    /**
+     * Accepts a request whose signature is authentic unless it is a replay.
+     *
+     * @return The rejection, or empty if the request is accepted
+     */
+    private Mono<HmacRejection> acceptVerified(ServerWebExchange exchange, String keyId, long fingerprint,
+                                               String timestamp, boolean checkReplay, Observation observation) {
+        Mono<ReplayCache.Result> replay = replayProtection != null && checkReplay
+                ? Mono.fromFuture(replayProtection.checkAndRecordAsync(fingerprint, Long.parseLong(timestamp)))
+                : Mono.just(ReplayCache.Result.ACCEPTED);
+        return replay.flatMap(result -> switch (result) {
+            case REPLAYED, EXPIRED -> Mono.just(HmacRejection.REPLAYED);
+            case FULL, UNAVAILABLE -> Mono.just(HmacRejection.REPLAY_CHECK_UNAVAILABLE);
+            case ACCEPTED -> {
+                metrics.recordAccepted(keyId);
+                observation.lowCardinalityKeyValue("outcome", "accepted").stop();
+                yield Mono.<HmacRejection>empty();
+            }
+        });
+    }
+
+    /**
+     * Writes a rejection to the response and records it.
+     */
+    private Mono<Void> reject(ServerWebExchange exchange, HmacRejection rejection, String keyId,
+                              Observation observation) {
+        metrics.recordRejected(rejection, keyId);
+        observation.lowCardinalityKeyValue("outcome", rejection.getTag()).stop();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatusCode.valueOf(rejection.getStatus()));
+        if (closeConnectionOnRejection) {
+            // Don't let the server drain an unread body to keep the connection alive
+            response.getHeaders().set(HttpHeaders.CONNECTION, "close");
+        }
+        response.getHeaders().setContentType(MediaType.parseMediaType(rejectionFormat.getContentType()));
+        response.getHeaders().setContentLength(rejection.getContentLength(rejectionFormat));
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(rejection.getBody(rejectionFormat))));
+    }
+
+    /**
+     * Outcome of the signature check: a rejection, or the fingerprint of the accepted signature.
+     */
+    private record Verdict(HmacRejection rejection, long fingerprint) {
+    }
+
+    /**
+     * The request body, collected into one array while it is fed to the signature. The array grows as
+     * data arrives, never beyond the body size limit.
+     */
+    private static final class VerifiedBody {
+        private byte[] bytes;
+        private int size;
+
+        private VerifiedBody(int initialCapacity) {
+            this.bytes = new byte[initialCapacity];
+        }
+
+        /**
+         * Copies the buffer's readable bytes behind the body read so far and feeds them to the signature.
+         *
+         * @throws BodyTooLargeException if the body grows beyond the maximum size
+         */
+        private void append(DataBuffer buffer, VerificationSession session, long maxBodyBytes) {
+            int length = buffer.readableByteCount();
+            if (size + (long) length > maxBodyBytes) {
+                throw new BodyTooLargeException();
+            }
+            if (size + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(maxBodyBytes, Math.max(size + length, 2L * bytes.length)));
+            }
+            buffer.read(bytes, size, length);
+            session.update(bytes, size, length);
+            size += length;
+        }
+
+        /**
+         * Returns the request with its body replaced by the verified bytes, which it can read any number of times.
+         */
+        private ServerHttpRequest replaceBody(ServerHttpRequest request, DataBufferFactory bufferFactory) {
+            return new ServerHttpRequestDecorator(request) {
+                @Override
+                public Flux<DataBuffer> getBody() {
+                    return size == 0
+                            ? Flux.empty()
+                            : Flux.defer(() -> Flux.just(bufferFactory.wrap(ByteBuffer.wrap(bytes, 0, size))));
+                }
+            };
+        }
+    }
+
+    private static final class BodyTooLargeException extends RuntimeException {
+        private BodyTooLargeException() {
+            super("Request body too large", null, false, false);
+        }
+    }
+}
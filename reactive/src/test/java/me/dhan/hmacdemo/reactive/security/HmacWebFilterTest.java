@@ -0,0 +1,113 @@
+package me.dhan.hmacdemo.reactive.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.dhan.hmacdemo.reactive.controller.ReactiveDemoController;
+import me.dhan.hmacdemo.security.HmacKeyCache;
+import me.dhan.hmacdemo.security.HmacMetrics;
+import me.dhan.hmacdemo.security.HmacUtils;
+import me.dhan.hmacdemo.security.InMemoryHmacKeyProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HmacWebFilterTest {
+
+    private static final String SECRET = "secret";
+    private static final String URI = "/api/demo/sum";
+
+    private WebTestClient client;
+
+    @BeforeEach
+    public void setUp() {
+        HmacKeyCache keyCache = new HmacKeyCache(
+                new InMemoryHmacKeyProvider(Map.of("default", SECRET)), Duration.ofMinutes(5), 10);
+        HmacWebFilter filter = new HmacWebFilter(keyCache, HmacMetrics.noop());
+        ReflectionTestUtils.setField(filter, "defaultKeyId", "default");
+        ReflectionTestUtils.setField(filter, "maxBodySize", DataSize.ofBytes(64));
+        ReflectionTestUtils.setField(filter, "replayProtectionEnabled", true);
+        ReflectionTestUtils.setField(filter, "replayBucketWidth", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(filter, "replayMaxEntriesPerBucket", 100);
+        filter.initReplayCache();
+        client = WebTestClient.bindToController(new ReactiveDemoController(new ObjectMapper()))
+                .webFilter(filter)
+                .build();
+    }
+
+    @Test
+    public void testSignedPostIsAcceptedOnce() {
+        String body = "{\"a\":2,\"b\":3}";
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        String signature = HmacUtils.generateHmacSignature("POST", URI, "", timestamp, body, SECRET);
+
+        post(body, timestamp, signature)
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("5");
+        post(body, timestamp, signature)
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    public void testTamperedBodyIsRejected() {
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        String signature = HmacUtils.generateHmacSignature("POST", URI, "", timestamp, "{\"a\":2,\"b\":3}", SECRET);
+
+        post("{\"a\":2,\"b\":4}", timestamp, signature)
+                .expectStatus().isUnauthorized()
+                .expectBody(String.class).isEqualTo("Invalid HMAC signature");
+    }
+
+    @Test
+    public void testDigestSchemeVerifiesBody() {
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        String digest = HmacUtils.computeBodyDigest("{\"a\":2,\"b\":3}".getBytes(StandardCharsets.UTF_8));
+        String signature = HmacUtils.generateDigestSignature("POST", URI, "", timestamp, digest, SECRET);
+
+        client.post().uri(URI)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-TIMESTAMP", timestamp)
+                .header("X-HMAC-SIGNATURE", signature)
+                .header("X-HMAC-VERSION", "2")
+                .header("X-CONTENT-SHA256", digest)
+                .bodyValue("{\"a\":2,\"b\":4}")
+                .exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody(String.class).isEqualTo("Body does not match digest");
+    }
+
+    @Test
+    public void testBodyAboveLimitIsRejected() {
+        String body = "{\"a\":2,\"b\":3,\"padding\":\"" + "x".repeat(64) + "\"}";
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        String signature = HmacUtils.generateHmacSignature("POST", URI, "", timestamp, body, SECRET);
+
+        post(body, timestamp, signature)
+                .expectStatus().isEqualTo(413);
+    }
+
+    @Test
+    public void testBodyLimitAboveArraySizeIsRejectedAtStartup() {
+        HmacWebFilter filter = new HmacWebFilter(new HmacKeyCache(
+                new InMemoryHmacKeyProvider(Map.of("default", SECRET)), Duration.ofMinutes(5), 10), HmacMetrics.noop());
+        ReflectionTestUtils.setField(filter, "maxBodySize", DataSize.ofGigabytes(3));
+
+        assertThrows(IllegalArgumentException.class, filter::initReplayCache);
+    }
+
+    private WebTestClient.ResponseSpec post(String body, String timestamp, String signature) {
+        return client.post().uri(URI)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-TIMESTAMP", timestamp)
+                .header("X-HMAC-SIGNATURE", signature)
+                .bodyValue(body)
+                .exchange();
+    }
+}
@@ -1 +1,4 @@
 rootProject.name = "hmac-demo"
+
+// WebFlux variant of the application, sharing the signing and verification code of the root project
+include("reactive")
@@ -0,0 +1,50 @@
+package me.dhan.hmacdemo.bench;
+
+import me.dhan.hmacdemo.security.HmacSigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Base64 encoding of a MAC, as done for every signature, and decoding of a signature header.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class Base64Benchmark {
+
+    private byte[] mac;
+    private String encoded;
+    private byte[] encodedBuffer;
+
+    @Setup
+    public void setUp() {
+        mac = new HmacSigner(BenchmarkData.SECRET).sign("payload".getBytes(StandardCharsets.UTF_8));
+        encoded = Base64.getEncoder().encodeToString(mac);
+        encodedBuffer = new byte[encoded.length()];
+    }
+
+    @Benchmark
+    public String encodeToString() {
+        return Base64.getEncoder().encodeToString(mac);
+    }
+
+    @Benchmark
+    public byte[] encodeIntoBuffer() {
+        Base64.getEncoder().encode(mac, encodedBuffer);
+        return encodedBuffer;
+    }
+
+    @Benchmark
+    public byte[] decode() {
+        return Base64.getDecoder().decode(encoded);
+    }
+}
@@ -0,0 +1,31 @@
+package me.dhan.hmacdemo.bench;
+
+import java.util.Arrays;
+
+/**
+ * Shared inputs for the benchmarks.
+ */
+final class BenchmarkData {
+
+    static final String SECRET = "YourSecretKeyHere123!";
+    static final String URI = "/api/demo/sum";
+    static final String TIMESTAMP = "1634567890123";
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Returns a JSON document of exactly {@code size} bytes that the sum endpoint accepts.
+     */
+    static String jsonBody(int size) {
+        if (size == 0) {
+            return "";
+        }
+        String prefix = "{\"a\":5,\"b\":3,\"padding\":\"";
+        String suffix = "\"}";
+        int paddingLength = Math.max(0, size - prefix.length() - suffix.length());
+        char[] padding = new char[paddingLength];
+        Arrays.fill(padding, 'x');
+        return prefix + new String(padding) + suffix;
+    }
+}
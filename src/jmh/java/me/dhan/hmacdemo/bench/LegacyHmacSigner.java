@@ -0,0 +1,43 @@
+package me.dhan.hmacdemo.bench;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * The original signing implementation, kept as the baseline for comparing optimized signers.
+ * It builds the canonical string, looks up and initializes a new {@link Mac} on every call.
+ */
+final class LegacyHmacSigner {
+
+    private LegacyHmacSigner() {
+    }
+
+    static String generateHmacSignature(String method, String uri, String queryString, String timestamp,
+                                        String requestBody, String secretKey) throws Exception {
+        StringBuilder dataToSign = new StringBuilder();
+        dataToSign.append(method).append("\n");
+        dataToSign.append(uri).append("\n");
+
+        if (queryString != null && !queryString.isEmpty()) {
+            dataToSign.append(queryString).append("\n");
+        } else {
+            dataToSign.append("\n");
+        }
+
+        if (requestBody != null && !requestBody.isEmpty()) {
+            dataToSign.append(requestBody).append("\n");
+        }
+
+        if (timestamp != null && !timestamp.isEmpty()) {
+            dataToSign.append(timestamp);
+        }
+
+        Mac hmac = Mac.getInstance("HmacSHA256");
+        hmac.init(new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] hmacBytes = hmac.doFinal(dataToSign.toString().getBytes(StandardCharsets.UTF_8));
+
+        return Base64.getEncoder().encodeToString(hmacBytes);
+    }
+}
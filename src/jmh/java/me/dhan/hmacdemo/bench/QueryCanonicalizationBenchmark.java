@@ -0,0 +1,74 @@
+package me.dhan.hmacdemo.bench;
+
+import me.dhan.hmacdemo.security.CanonicalQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the signed query string is derived: the original parameter-map concatenation,
+ * {@link CanonicalQuery} over the parameter map (the MockMvc path in {@code HmacFilter}), and
+ * {@link CanonicalQuery} over a raw query that is already canonical or needs sorting.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QueryCanonicalizationBenchmark {
+
+    @Param({"2", "16"})
+    private int parameterCount;
+
+    private Map<String, String[]> parameterMap;
+    private String canonicalQuery;
+    private String unsortedQuery;
+
+    @Setup
+    public void setUp() {
+        parameterMap = new LinkedHashMap<>();
+        StringBuilder unsorted = new StringBuilder();
+        for (int i = 0; i < parameterCount; i++) {
+            parameterMap.put("param" + i, new String[]{String.valueOf(i * 31)});
+            unsorted.insert(0, "param" + i + "=" + i * 31 + (i > 0 ? "&" : ""));
+        }
+        canonicalQuery = CanonicalQuery.fromParameters(parameterMap);
+        unsortedQuery = unsorted.toString();
+    }
+
+    @Benchmark
+    public String fromParameterMap() {
+        StringBuilder paramsBuilder = new StringBuilder();
+        parameterMap.forEach((key, values) -> {
+            for (String value : values) {
+                if (!paramsBuilder.isEmpty()) {
+                    paramsBuilder.append("&");
+                }
+                paramsBuilder.append(key).append("=").append(value);
+            }
+        });
+        return paramsBuilder.toString();
+    }
+
+    @Benchmark
+    public String canonicalFromParameterMap() {
+        return CanonicalQuery.fromParameters(parameterMap);
+    }
+
+    @Benchmark
+    public String canonicalizeCanonicalQuery() {
+        return CanonicalQuery.canonicalize(canonicalQuery);
+    }
+
+    @Benchmark
+    public String canonicalizeUnsortedQuery() {
+        return CanonicalQuery.canonicalize(unsortedQuery);
+    }
+}
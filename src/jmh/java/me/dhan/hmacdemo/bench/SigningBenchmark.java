@@ -0,0 +1,56 @@
+package me.dhan.hmacdemo.bench;
+
+import me.dhan.hmacdemo.security.HmacSigner;
+import me.dhan.hmacdemo.security.HmacUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures request signing for body sizes from 0 B to 10 MB, comparing the original implementation
+ * with the {@link HmacUtils} facade and the byte-oriented {@link HmacSigner} path used by the filter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SigningBenchmark {
+
+    @Param({"0", "1024", "65536", "1048576", "10485760"})
+    private int bodySize;
+
+    private String body;
+    private byte[] bodyBytes;
+    private HmacSigner signer;
+
+    @Setup
+    public void setUp() {
+        body = BenchmarkData.jsonBody(bodySize);
+        bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+        signer = new HmacSigner(BenchmarkData.SECRET);
+    }
+
+    @Benchmark
+    public String legacy() throws Exception {
+        return LegacyHmacSigner.generateHmacSignature("POST", BenchmarkData.URI, "", BenchmarkData.TIMESTAMP,
+                body, BenchmarkData.SECRET);
+    }
+
+    @Benchmark
+    public String hmacUtils() {
+        return HmacUtils.generateHmacSignature("POST", BenchmarkData.URI, "", BenchmarkData.TIMESTAMP,
+                body, BenchmarkData.SECRET);
+    }
+
+    @Benchmark
+    public byte[] signerBytes() {
+        return signer.sign("POST", BenchmarkData.URI, "", BenchmarkData.TIMESTAMP, bodyBytes);
+    }
+}
@@ -0,0 +1,342 @@
+package me.dhan.hmacdemo.load;
+
+import me.dhan.hmacdemo.HmacDemoApplication;
+import me.dhan.hmacdemo.client.HmacApiClient;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays signed traffic through {@link HmacApiClient} against the application running on a real
+ * Tomcat, and reports latency percentiles and throughput per kind of request.
+ * <p>
+ * The application is started on a random port unless {@code --url} points to a running server. The
+ * traffic is a mix of signed GET requests to the sum endpoint and signed POST requests to the batch
+ * endpoint with bodies of the given sizes; a share of the requests is signed with a wrong secret and
+ * must be rejected with 401. Every request carries a unique sequence number, so none of them is
+ * rejected as a replay.
+ * <p>
+ * Replay protection stays on, but a replay bucket only accepts
+ * {@code hmac.replay.max-entries-per-bucket} requests and answers the rest with 503, which would
+ * count as errors and skew the percentiles. The embedded application therefore gets a cap of twice
+ * the requests due per bucket at the given rate, as a schedule that fell behind catches up in a
+ * burst, or a fixed large cap without a rate. {@code --replay-entries} overrides it and
+ * {@code --replay-entries=0} disables replay protection; the summary header records the setting.
+ * <p>
+ * With {@code --rate} the requests are sent on a fixed schedule and latency is measured from the time
+ * each request was due, so a server that falls behind shows up in the percentiles instead of silently
+ * slowing the load down (coordinated omission). Without it, {@code --concurrency} requests are kept in
+ * flight as fast as the server answers. Options, with their defaults:
+ * <pre>
+ * --duration=30s --warmup=5s --rate=0 --concurrency=64 --get-ratio=0.5 --invalid-ratio=0.01
+ * --body-sizes=64,1024,65536 --replay-entries= --output=build/load --url=
+ * </pre>
+ * The report is written to {@code summary.txt} in the output directory, with one HDR histogram
+ * percentile distribution ({@code .hgrm}) per kind of request. It contains no timestamps or host
+ * details, so reports of two builds can be compared with {@code diff}. Usage:
+ * <pre>
+ * ./gradlew loadGenerator -Pduration=60s -Prate=2000 -PbodySizes=64,65536 -PinvalidRatio=0.05
+ * </pre>
+ */
+public class LoadGenerator {
+
+    private static final String SECRET = "LoadTestSecretKey";
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final Duration REPLAY_BUCKET_WIDTH = Duration.ofSeconds(10);
+    // Replay entries per bucket without a rate: about 26k requests per second, 150 MB over the window
+    private static final int UNPACED_REPLAY_ENTRIES = 1 << 18;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        Duration duration = Duration.parse("PT" + options.getOrDefault("duration", "30s"));
+        Duration warmup = Duration.parse("PT" + options.getOrDefault("warmup", "5s"));
+        int rate = Integer.parseInt(options.getOrDefault("rate", "0"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "64"));
+        double getRatio = Double.parseDouble(options.getOrDefault("get-ratio", "0.5"));
+        double invalidRatio = Double.parseDouble(options.getOrDefault("invalid-ratio", "0.01"));
+        int[] bodySizes = Arrays.stream(options.getOrDefault("body-sizes", "64,1024,65536").split(","))
+                .mapToInt(size -> Integer.parseInt(size.trim()))
+                .toArray();
+        Path output = Path.of(options.getOrDefault("output", "build/load"));
+        String url = options.getOrDefault("url", "");
+        int replayEntries = options.containsKey("replay-entries")
+                ? Integer.parseInt(options.get("replay-entries"))
+                : replayEntriesFor(rate);
+
+        Traffic traffic = new Traffic(getRatio, invalidRatio, bodySizes);
+        String config = String.format(Locale.ROOT,
+                "duration=%s warmup=%s rate=%d concurrency=%d get-ratio=%.2f invalid-ratio=%.2f body-sizes=%s",
+                options.getOrDefault("duration", "30s"), options.getOrDefault("warmup", "5s"), rate, concurrency,
+                getRatio, invalidRatio, options.getOrDefault("body-sizes", "64,1024,65536"));
+
+        if (!url.isEmpty()) {
+            // The server's own replay settings apply
+            report(run(url, traffic, warmup, duration, rate, concurrency), config + " replay=server", output);
+            return;
+        }
+        String replay = replayEntries > 0
+                ? "hmac.replay.max-entries-per-bucket=" + replayEntries
+                : "hmac.replay.enabled=false";
+        String replayConfig = replayEntries > 0
+                ? " replay-entries=" + replayEntries + " replay-bucket-width=" + REPLAY_BUCKET_WIDTH.toSeconds() + "s"
+                : " replay=disabled";
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(HmacDemoApplication.class)
+                .properties(
+                        "server.port=0",
+                        "hmac.secret=" + SECRET,
+                        "hmac.body.max-size=" + Math.max(10 << 20, Arrays.stream(bodySizes).max().orElse(0) * 2),
+                        "hmac.replay.bucket-width=" + REPLAY_BUCKET_WIDTH.toSeconds() + "s",
+                        replay,
+                        "logging.level.root=WARN")
+                .run();
+        try (context) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            report(run("http://localhost:" + port, traffic, warmup, duration, rate, concurrency), config + replayConfig,
+                    output);
+        }
+    }
+
+    /**
+     * Returns the replay entries per bucket that leave room for the traffic, never below the application default.
+     */
+    private static int replayEntriesFor(int rate) {
+        if (rate <= 0) {
+            return UNPACED_REPLAY_ENTRIES;
+        }
+        long perBucket = rate * REPLAY_BUCKET_WIDTH.toSeconds() * 2;
+        return (int) Math.min(1 << 24, Math.max(65_536, perBucket));
+    }
+
+    /**
+     * Sends the warm-up traffic, whose results are discarded, then the measured traffic.
+     */
+    private static Results run(String baseUrl, Traffic traffic, Duration warmup, Duration duration, int rate,
+                               int concurrency) throws Exception {
+        try (HmacApiClient client = newClient(baseUrl, SECRET, concurrency);
+             HmacApiClient forger = newClient(baseUrl, "Not" + SECRET, concurrency)) {
+            AtomicLong sequence = new AtomicLong();
+            Semaphore inFlight = new Semaphore(concurrency);
+            send(client, forger, traffic, sequence, inFlight, warmup, rate);
+            return send(client, forger, traffic, sequence, inFlight, duration, rate);
+        }
+    }
+
+    private static HmacApiClient newClient(String baseUrl, String secret, int concurrency) {
+        return HmacApiClient.builder(baseUrl, secret)
+                .virtualThreads()
+                .maxInFlight(concurrency)
+                .printCurlCommands(false)
+                .build();
+    }
+
+    /**
+     * Sends requests for the given duration, on a fixed schedule when a rate is given. The in-flight
+     * limit is shared by both clients, so invalid requests take their share of the concurrency.
+     */
+    private static Results send(HmacApiClient client, HmacApiClient forger, Traffic traffic, AtomicLong sequence,
+                                Semaphore inFlight, Duration duration, int rate) throws InterruptedException {
+        Results results = new Results(traffic.kinds());
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        long intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        long begin = System.nanoTime();
+        long end = begin + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long due = rate > 0 ? begin + i * intervalNanos : System.nanoTime();
+            if (due >= end) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Request request = traffic.next(sequence.getAndIncrement());
+            HmacApiClient sender = request.valid() ? client : forger;
+            int expectedStatus = request.valid() ? 200 : 401;
+            inFlight.acquire();
+            // Without a schedule a request is due when a slot frees up
+            long start = rate > 0 ? due : System.nanoTime();
+            pending.add(sender.sendAsync(request.method(), request.uri(), request.query(), request.body())
+                    .handle((status, error) -> {
+                        inFlight.release();
+                        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                        results.record(request.kind(), latencyMicros, error == null && status == expectedStatus);
+                        return null;
+                    }));
+            if (pending.size() >= 10_000) {
+                pending.removeIf(CompletableFuture::isDone);
+            }
+        }
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        results.elapsedNanos = System.nanoTime() - begin;
+        return results;
+    }
+
+    /**
+     * Prints the summary and writes it, together with the histograms, to the output directory.
+     */
+    private static void report(Results results, String config, Path output) throws IOException {
+        Files.createDirectories(output);
+        StringBuilder summary = new StringBuilder();
+        summary.append("# ").append(config).append('\n');
+        summary.append(String.format(Locale.ROOT, "%-12s %10s %8s %12s %10s %10s %10s %10s%n",
+                "kind", "requests", "errors", "requests/s", "p50_us", "p99_us", "p999_us", "max_us"));
+        double seconds = results.elapsedNanos / 1e9;
+        Histogram total = new Histogram(MAX_LATENCY_MICROS, SIGNIFICANT_DIGITS);
+        long totalErrors = 0;
+        for (Map.Entry<String, ConcurrentHistogram> entry : results.latencies.entrySet()) {
+            Histogram histogram = entry.getValue();
+            long errors = results.errors.get(entry.getKey()).get();
+            summary.append(line(entry.getKey(), histogram, errors, seconds));
+            total.add(histogram);
+            totalErrors += errors;
+            try (PrintStream out = new PrintStream(Files.newOutputStream(output.resolve(entry.getKey() + ".hgrm")),
+                    false, StandardCharsets.UTF_8)) {
+                histogram.outputPercentileDistribution(out, 1.0);
+            }
+        }
+        summary.append(line("all", total, totalErrors, seconds));
+
+        Files.writeString(output.resolve("summary.txt"), summary);
+        System.out.println();
+        System.out.print(summary);
+        System.out.println("Histograms written to " + output.toAbsolutePath());
+    }
+
+    private static String line(String kind, Histogram histogram, long errors, double seconds) {
+        return String.format(Locale.ROOT, "%-12s %10d %8d %12.1f %10d %10d %10d %10d%n",
+                kind, histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9), histogram.getMaxValue());
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    /**
+     * One request of the generated traffic.
+     *
+     * @param kind  Name the request's latency is reported under
+     * @param valid Whether the request is signed with the right secret
+     */
+    private record Request(String kind, boolean valid, String method, String uri, String query, byte[] body) {
+    }
+
+    /**
+     * The mix of requests: GET, POST with each body size, and invalid signatures of either.
+     */
+    private static final class Traffic {
+        private final double getRatio;
+        private final double invalidRatio;
+        private final byte[][] bodyTails;
+        private final String[] postKinds;
+
+        private Traffic(double getRatio, double invalidRatio, int[] bodySizes) {
+            this.getRatio = getRatio;
+            this.invalidRatio = invalidRatio;
+            this.bodyTails = new byte[bodySizes.length][];
+            this.postKinds = new String[bodySizes.length];
+            for (int i = 0; i < bodySizes.length; i++) {
+                bodyTails[i] = batchTail(bodySizes[i]);
+                postKinds[i] = "post-" + bodySizes[i];
+            }
+        }
+
+        private List<String> kinds() {
+            List<String> kinds = new ArrayList<>();
+            kinds.add("get");
+            kinds.addAll(Arrays.asList(postKinds));
+            kinds.add("invalid");
+            return kinds;
+        }
+
+        private Request next(long sequence) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            boolean valid = random.nextDouble() >= invalidRatio;
+            if (bodyTails.length == 0 || random.nextDouble() < getRatio) {
+                return new Request(valid ? "get" : "invalid", valid, "GET", "/api/demo/sum",
+                        "a=" + sequence + "&b=1", null);
+            }
+            int size = random.nextInt(bodyTails.length);
+            return new Request(valid ? postKinds[size] : "invalid", valid, "POST", "/api/demo/sum/batch", null,
+                    batchBody(sequence, bodyTails[size]));
+        }
+
+        /**
+         * Returns the batch body that starts with a pair holding the sequence number, which makes it unique.
+         */
+        private static byte[] batchBody(long sequence, byte[] tail) {
+            byte[] head = ("[{\"a\":" + sequence + ",\"b\":1}").getBytes(StandardCharsets.US_ASCII);
+            byte[] body = Arrays.copyOf(head, head.length + tail.length);
+            System.arraycopy(tail, 0, body, head.length, tail.length);
+            return body;
+        }
+
+        /**
+         * Returns the pairs that follow the first one, closing the array, for a body of about the given size.
+         */
+        private static byte[] batchTail(int bodySize) {
+            StringBuilder tail = new StringBuilder(bodySize + 16);
+            String pair = ",{\"a\":1,\"b\":2}";
+            while (tail.length() + pair.length() + 16 < bodySize) {
+                tail.append(pair);
+            }
+            return tail.append(']').toString().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * Latencies in microseconds and error counts per kind of request.
+     */
+    private static final class Results {
+        private final Map<String, ConcurrentHistogram> latencies = new LinkedHashMap<>();
+        private final Map<String, AtomicLong> errors = new HashMap<>();
+        private long elapsedNanos;
+
+        private Results(List<String> kinds) {
+            for (String kind : kinds) {
+                latencies.put(kind, new ConcurrentHistogram(MAX_LATENCY_MICROS, SIGNIFICANT_DIGITS));
+                errors.put(kind, new AtomicLong());
+            }
+        }
+
+        private void record(String kind, long latencyMicros, boolean expected) {
+            latencies.get(kind).recordValue(Math.min(latencyMicros, MAX_LATENCY_MICROS));
+            if (!expected) {
+                errors.get(kind).incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package me.dhan.hmacdemo.load;
+
+import me.dhan.hmacdemo.HmacDemoApplication;
+import me.dhan.hmacdemo.client.HmacApiClient;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares request throughput of the application running on Tomcat's platform thread pool
+ * and on virtual threads.
+ * <p>
+ * For each mode the application is started on a random port, warmed up, and then driven with
+ * signed POST requests from virtual threads at a fixed concurrency. The replay cap is raised so
+ * that every request fits in one replay bucket, as requests over it would be rejected with 503, and
+ * the run fails if any measured request fails. Usage:
+ * <pre>
+ * ./gradlew threadModeBenchmark -Prequests=20000 -Pconcurrency=1000
+ * </pre>
+ */
+public class ThreadModeBenchmark {
+
+    private static final String SECRET = "LoadTestSecretKey";
+    private static final int WARMUP_REQUESTS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+
+        List<Result> results = new ArrayList<>();
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            results.add(run(virtualThreads, requests, concurrency));
+        }
+
+        System.out.println();
+        System.out.printf("%-10s %10s %12s %10s %14s%n", "mode", "requests", "concurrency", "errors", "requests/sec");
+        results.forEach(result -> System.out.println(result.line()));
+        long errors = results.stream().mapToLong(Result::errors).sum();
+        if (errors > 0) {
+            throw new IllegalStateException(errors + " requests failed, so the throughput is not comparable");
+        }
+    }
+
+    private static Result run(boolean virtualThreads, int requests, int concurrency) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(HmacDemoApplication.class)
+                .properties(
+                        "server.port=0",
+                        "hmac.secret=" + SECRET,
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.accept-count=" + concurrency,
+                        // Warm-up and measured requests all fit in one replay bucket
+                        "hmac.replay.max-entries-per-bucket=" + Math.max(65_536, requests + WARMUP_REQUESTS),
+                        "logging.level.root=WARN")
+                .run();
+        try (context) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            try (HmacApiClient client = HmacApiClient.builder("http://localhost:" + port, SECRET)
+                    .virtualThreads()
+                    .printCurlCommands(false)
+                    .build()) {
+
+                drive(client, Math.min(requests, WARMUP_REQUESTS), concurrency);
+                long start = System.nanoTime();
+                int errors = drive(client, requests, concurrency);
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                return new Result(String.format("%-10s %10d %12d %10d %14.1f",
+                        virtualThreads ? "virtual" : "platform", requests, concurrency, errors, requests / seconds),
+                        errors);
+            }
+        }
+    }
+
+    /**
+     * Sends the given number of requests with at most {@code concurrency} in flight.
+     *
+     * @return The number of failed requests
+     */
+    private static int drive(HmacApiClient client, int requests, int concurrency) throws Exception {
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicInteger errors = new AtomicInteger();
+        try (ExecutorService drivers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                int a = i;
+                inFlight.acquire();
+                futures.add(drivers.submit(() -> {
+                    try {
+                        if (client.sum(a, 1) != a + 1) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return errors.get();
+    }
+
+    /**
+     * @param line   Row of the results table
+     * @param errors Number of failed measured requests
+     */
+    private record Result(String line, int errors) {
+    }
+}
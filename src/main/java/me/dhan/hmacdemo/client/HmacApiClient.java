@@ -1,28 +1,62 @@
 package me.dhan.hmacdemo.client;
 
+import me.dhan.hmacdemo.model.SumBatch;
 import me.dhan.hmacdemo.model.SumRequest;
+import me.dhan.hmacdemo.security.HmacSigner;
 import me.dhan.hmacdemo.security.HmacUtils;
+import me.dhan.hmacdemo.security.MacAlgorithm;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Example client for making authenticated requests to the HMAC-protected API.
  * This class demonstrates how to generate and include HMAC signatures in requests.
+ * <p>
+ * A client is thread-safe and meant to be reused: it keeps one HTTP/2-capable {@link HttpClient}
+ * with its connection pool, one {@link HmacSigner} for its secret and a shared {@link ObjectMapper}.
+ * {@link #sumAsync(int, int)} sends requests without blocking on responses, multiplexed over the
+ * same connections, with the number of outstanding requests bounded by {@link Builder#maxInFlight(int)}.
  */
 @SuppressWarnings({"SameParameterValue", "UastIncorrectHttpHeaderInspection"})
-public class HmacApiClient {
+public class HmacApiClient implements AutoCloseable {
 
     private static final String HMAC_HEADER_NAME = "X-HMAC-SIGNATURE";
     private static final String TIMESTAMP_HEADER_NAME = "X-TIMESTAMP";
+    private static final String KEY_ID_HEADER_NAME = "X-KEY-ID";
+    private static final String VERSION_HEADER_NAME = "X-HMAC-VERSION";
+    private static final String ALGORITHM_HEADER_NAME = "X-HMAC-ALGORITHM";
+    private static final String BODY_DIGEST_HEADER_NAME = "X-CONTENT-SHA256";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     private final String baseUrl;
-    private final String secretKey;
+    private final HmacSigner signer;
+    private final String keyId;
     private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final boolean printCurlCommands;
+    private final boolean bodyDigestSigning;
+    private final Semaphore inFlight;
+    private final SumBatcher batcher;
 
     /**
      * Creates a new HMAC API client.
@@ -31,11 +65,36 @@ public class HmacApiClient {
      * @param secretKey The secret key for generating HMAC signatures
      */
     public HmacApiClient(String baseUrl, String secretKey) {
-        this.baseUrl = baseUrl;
-        this.secretKey = secretKey;
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(10))
-                .build();
+        this(builder(baseUrl, secretKey));
+    }
+
+    private HmacApiClient(Builder builder) {
+        this.baseUrl = builder.baseUrl;
+        this.signer = new HmacSigner(builder.secretKey, builder.algorithm);
+        this.keyId = builder.keyId;
+        this.executor = builder.executor;
+        this.printCurlCommands = builder.printCurlCommands;
+        this.bodyDigestSigning = builder.bodyDigestSigning;
+        this.inFlight = new Semaphore(builder.maxInFlight);
+        this.batcher = builder.maxBatchSize > 0 ? new SumBatcher(builder.maxBatchSize, builder.maxBatchDelay) : null;
+        HttpClient.Builder httpClientBuilder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(10));
+        if (executor != null) {
+            httpClientBuilder.executor(executor);
+        }
+        this.httpClient = httpClientBuilder.build();
+    }
+
+    /**
+     * Returns a builder for a client with non-default settings.
+     *
+     * @param baseUrl   The base URL of the API (e.g., http://localhost:8080)
+     * @param secretKey The secret key for generating HMAC signatures
+     * @return A new builder
+     */
+    public static Builder builder(String baseUrl, String secretKey) {
+        return new Builder(baseUrl, secretKey);
     }
 
     /**
@@ -48,46 +107,205 @@ public class HmacApiClient {
      * @throws InterruptedException If the operation is interrupted
      */
     public int sum(int a, int b) throws IOException, InterruptedException {
-        String uri = "/api/demo/sum";
-        String fullUrl = baseUrl + uri;
+        inFlight.acquire();
+        try {
+            HttpResponse<String> response = httpClient.send(buildSumRequest(a, b), HttpResponse.BodyHandlers.ofString());
+            return parseSumResponse(response);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    /**
+     * Sends a POST request to the sum endpoint without waiting for the response.
+     * <p>
+     * At most {@link Builder#maxInFlight(int)} requests are outstanding at any time; when the limit is
+     * reached this method blocks until an earlier request completes, so a producer issuing calls in a
+     * loop is slowed down to the rate the server sustains instead of queueing requests without bound.
+     * <p>
+     * With {@link Builder#autoBatch(int, Duration)} the call is queued and sent as part of a batch request.
+     * Any failure to send the batch, including an interrupt while waiting for an in-flight slot or a call
+     * made after {@link #close()}, completes the future exceptionally instead of throwing.
+     *
+     * @param a First number
+     * @param b Second number
+     * @return A future completed with the sum of a and b
+     * @throws InterruptedException If interrupted while waiting for an in-flight slot
+     */
+    public CompletableFuture<Integer> sumAsync(int a, int b) throws InterruptedException {
+        if (batcher != null) {
+            return batcher.add(a, b);
+        }
+        HttpRequest request;
+        inFlight.acquire();
+        try {
+            request = buildSumRequest(a, b);
+        } catch (IOException | RuntimeException e) {
+            inFlight.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> inFlight.release())
+                .thenApply(this::parseSumResponse);
+    }
+
+    /**
+     * Sends many pairs in one request to the batch endpoint, authenticated with a single signature.
+     *
+     * @param batch The pairs to add
+     * @return The sums, in batch order
+     * @throws IOException          If an I/O error occurs
+     * @throws InterruptedException If the operation is interrupted
+     */
+    public int[] sumBatch(SumBatch batch) throws IOException, InterruptedException {
+        inFlight.acquire();
+        try {
+            HttpResponse<byte[]> response = httpClient.send(buildBatchRequest(batch), HttpResponse.BodyHandlers.ofByteArray());
+            return parseBatchResponse(response, batch.size());
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    /**
+     * Sends many pairs in one request to the batch endpoint without waiting for the response.
+     * Counts as one request against the {@link Builder#maxInFlight(int) in-flight limit}.
+     *
+     * @param batch The pairs to add
+     * @return A future completed with the sums, in batch order
+     * @throws InterruptedException If interrupted while waiting for an in-flight slot
+     */
+    public CompletableFuture<int[]> sumBatchAsync(SumBatch batch) throws InterruptedException {
+        HttpRequest request;
+        inFlight.acquire();
+        try {
+            request = buildBatchRequest(batch);
+        } catch (IOException | RuntimeException e) {
+            inFlight.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, error) -> inFlight.release())
+                .thenApply(response -> parseBatchResponse(response, batch.size()));
+    }
 
-        // Create request object
-        SumRequest sumRequest = new SumRequest(a, b);
+    /**
+     * Sends a signed request to any endpoint without waiting for the response, e.g. to generate load.
+     * Counts against the {@link Builder#maxInFlight(int) in-flight limit} like {@link #sumAsync(int, int)}.
+     *
+     * @param method      HTTP method (GET, POST, etc.)
+     * @param uri         Request path (e.g., /api/demo/sum)
+     * @param queryString Query string without the leading '?', may be null
+     * @param body        JSON request body, or null for a request without a body
+     * @return A future completed with the response status; the response body is discarded
+     * @throws InterruptedException If interrupted while waiting for an in-flight slot
+     */
+    public CompletableFuture<Integer> sendAsync(String method, String uri, String queryString, byte[] body)
+            throws InterruptedException {
+        HttpRequest request;
+        inFlight.acquire();
+        try {
+            request = buildSignedRequest(method, uri, queryString, body);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> inFlight.release())
+                .thenApply(HttpResponse::statusCode);
+    }
 
-        // Convert to JSON
-        ObjectMapper objectMapper = new ObjectMapper();
-        String requestBody = objectMapper.writeValueAsString(sumRequest);
+    private HttpRequest buildSumRequest(int a, int b) throws IOException {
+        // Serialize the request with the shared mapper
+        return buildSignedPost("/api/demo/sum", OBJECT_MAPPER.writeValueAsBytes(new SumRequest(a, b)));
+    }
 
+    private HttpRequest buildBatchRequest(SumBatch batch) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(batch.size() * 16 + 2);
+        try (JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(body)) {
+            batch.write(generator);
+        }
+        return buildSignedPost("/api/demo/sum/batch", body.toByteArray());
+    }
+
+    private HttpRequest buildSignedPost(String uri, byte[] bodyBytes) {
         // For POST requests with JSON body, the query string is empty
-        String queryString = "";
+        return buildSignedRequest("POST", uri, "", bodyBytes);
+    }
+
+    private HttpRequest buildSignedRequest(String method, String uri, String queryString, byte[] bodyBytes) {
+        String fullUrl = queryString == null || queryString.isEmpty() ? baseUrl + uri : baseUrl + uri + "?" + queryString;
 
         // Generate timestamp (current time in milliseconds)
         String timestamp = String.valueOf(System.currentTimeMillis());
 
-        // Generate HMAC signature with timestamp and request body
-        String hmacSignature = HmacUtils.generateHmacSignature("POST", uri, queryString, timestamp, requestBody, secretKey);
+        // Generate HMAC signature with timestamp and request body, or with the body's digest
+        String bodyDigest = null;
+        byte[] hmacBytes;
+        if (bodyDigestSigning) {
+            bodyDigest = HmacUtils.computeBodyDigest(bodyBytes == null ? new byte[0] : bodyBytes);
+            hmacBytes = signer.signDigest(method, uri, queryString, timestamp, bodyDigest);
+        } else {
+            hmacBytes = signer.sign(method, uri, queryString, timestamp, bodyBytes);
+        }
+        String hmacSignature = Base64.getEncoder().encodeToString(hmacBytes);
 
-        // Build and send request
-        HttpRequest request = HttpRequest.newBuilder()
+        // Build the request
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
                 .uri(URI.create(fullUrl))
                 .header(HMAC_HEADER_NAME, hmacSignature)
-                .header(TIMESTAMP_HEADER_NAME, timestamp)
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                .build();
+                .header(TIMESTAMP_HEADER_NAME, timestamp);
+        if (bodyBytes != null) {
+            requestBuilder.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(bodyBytes));
+        } else {
+            requestBuilder.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        if (keyId != null) {
+            requestBuilder.header(KEY_ID_HEADER_NAME, keyId);
+        }
+        if (signer.algorithm() != MacAlgorithm.DEFAULT) {
+            requestBuilder.header(ALGORITHM_HEADER_NAME, signer.algorithm().getHeaderValue());
+        }
+        if (bodyDigest != null) {
+            requestBuilder.header(VERSION_HEADER_NAME, "2");
+            requestBuilder.header(BODY_DIGEST_HEADER_NAME, bodyDigest);
+        }
 
         // Generate and print equivalent curl command
-        String curlCommand = generateCurlCommand("POST", fullUrl, requestBody, hmacSignature, timestamp);
-        var message = """
+        if (printCurlCommands) {
+            String requestBody = bodyBytes == null ? null : new String(bodyBytes, StandardCharsets.UTF_8);
+            String curlCommand = generateCurlCommand(method, fullUrl, requestBody, hmacSignature, timestamp, bodyDigest);
+            var message = """
+
+                    Equivalent curl command for the %s request:
+                    %s
 
-                Equivalent curl command for the POST request:
-                %s
+                    """.formatted(method, curlCommand);
+            System.out.println(message);
+        }
 
-                """.formatted(curlCommand);
-        System.out.println(message);
+        return requestBuilder.build();
+    }
+
+    private int[] parseBatchResponse(HttpResponse<byte[]> response, int expectedSize) {
+        if (response.statusCode() != 200) {
+            throw new RuntimeException("API request failed with status code: " + response.statusCode());
+        }
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        int[] results;
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(response.body())) {
+            results = SumBatch.readResults(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid batch response", e);
+        }
+        if (results.length != expectedSize) {
+            throw new RuntimeException("Expected " + expectedSize + " results but got " + results.length);
+        }
+        return results;
+    }
 
+    private int parseSumResponse(HttpResponse<String> response) {
         if (response.statusCode() != 200) {
             throw new RuntimeException("API request failed with status code: " + response.statusCode());
         }
@@ -103,15 +321,30 @@ public class HmacApiClient {
      * @param body           Request body (for POST, PUT, etc.)
      * @param hmacSignature  HMAC signature for authentication
      * @param timestamp      Request timestamp
+     * @param bodyDigest     Body digest for the body-digest scheme, or null
      * @return A string representing the equivalent curl command
      */
-    private String generateCurlCommand(String method, String url, String body, String hmacSignature, String timestamp) {
+    private String generateCurlCommand(String method, String url, String body, String hmacSignature, String timestamp,
+                                       String bodyDigest) {
         StringBuilder curlCommand = new StringBuilder();
         curlCommand.append("curl -X ").append(method).append(" \\\n");
         curlCommand.append("  \"").append(url).append("\" \\\n");
         curlCommand.append("  -H \"").append(HMAC_HEADER_NAME).append(": ").append(hmacSignature).append("\" \\\n");
         curlCommand.append("  -H \"").append(TIMESTAMP_HEADER_NAME).append(": ").append(timestamp).append("\" \\\n");
-        curlCommand.append("  -H \"Content-Type: application/json\" \\\n");
+        if (keyId != null) {
+            curlCommand.append("  -H \"").append(KEY_ID_HEADER_NAME).append(": ").append(keyId).append("\" \\\n");
+        }
+        if (signer.algorithm() != MacAlgorithm.DEFAULT) {
+            curlCommand.append("  -H \"").append(ALGORITHM_HEADER_NAME).append(": ")
+                    .append(signer.algorithm().getHeaderValue()).append("\" \\\n");
+        }
+        if (bodyDigest != null) {
+            curlCommand.append("  -H \"").append(VERSION_HEADER_NAME).append(": 2\" \\\n");
+            curlCommand.append("  -H \"").append(BODY_DIGEST_HEADER_NAME).append(": ").append(bodyDigest).append("\" \\\n");
+        }
+        if (body != null) {
+            curlCommand.append("  -H \"Content-Type: application/json\" \\\n");
+        }
 
         if (body != null && !body.isEmpty()) {
             // Escape double quotes in the body for proper shell escaping
@@ -122,15 +355,257 @@ public class HmacApiClient {
         return curlCommand.toString();
     }
 
+    /**
+     * Sends any calls still waiting to be batched, closes the HTTP client once its outstanding requests
+     * have completed, then shuts down the executor owned by this client, if any.
+     * Batched calls made after this fail.
+     */
+    @Override
+    public void close() {
+        if (batcher != null) {
+            batcher.close();
+        }
+        // Before the executor, which the HTTP client runs its callbacks on
+        httpClient.close();
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    /**
+     * Collects single sum calls into batches for {@link #sumBatchAsync(SumBatch)}.
+     */
+    private final class SumBatcher {
+        private final int maxBatchSize;
+        private final long maxDelayNanos;
+        private final ScheduledExecutorService timer;
+        private PendingBatch pending;
+        private boolean closed;
+
+        private SumBatcher(int maxBatchSize, Duration maxDelay) {
+            this.maxBatchSize = maxBatchSize;
+            this.maxDelayNanos = maxDelay.toNanos();
+            this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "hmac-client-batcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        private CompletableFuture<Integer> add(int a, int b) {
+            CompletableFuture<Integer> result = new CompletableFuture<>();
+            PendingBatch full = null;
+            synchronized (this) {
+                if (closed) {
+                    result.completeExceptionally(new IllegalStateException("Client is closed"));
+                    return result;
+                }
+                if (pending == null) {
+                    PendingBatch batch = new PendingBatch(maxBatchSize);
+                    batch.flushTask = timer.schedule(() -> flush(batch), maxDelayNanos, TimeUnit.NANOSECONDS);
+                    pending = batch;
+                }
+                pending.add(a, b, result);
+                if (pending.results.size() == maxBatchSize) {
+                    full = pending;
+                    pending = null;
+                    full.flushTask.cancel(false);
+                }
+            }
+            if (full != null) {
+                // Sending from the caller's thread applies the in-flight limit to the caller
+                send(full);
+            }
+            return result;
+        }
+
+        private void flush(PendingBatch batch) {
+            synchronized (this) {
+                if (pending != batch) {
+                    // Already sent because it filled up
+                    return;
+                }
+                pending = null;
+            }
+            send(batch);
+        }
+
+        /**
+         * Sends a batch and completes its futures with the sums. If the batch cannot be sent, every
+         * future in it fails; an interrupt is passed on to the calling thread's interrupt status.
+         */
+        private void send(PendingBatch batch) {
+            CompletableFuture<int[]> sums;
+            try {
+                sums = sumBatchAsync(batch.pairs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.fail(e);
+                return;
+            } catch (RuntimeException e) {
+                batch.fail(e);
+                return;
+            }
+            sums.whenComplete((results, error) -> {
+                if (error != null) {
+                    batch.fail(error);
+                    return;
+                }
+                for (int i = 0; i < results.length; i++) {
+                    batch.results.get(i).complete(results[i]);
+                }
+            });
+        }
+
+        private void close() {
+            PendingBatch batch;
+            synchronized (this) {
+                closed = true;
+                batch = pending;
+                pending = null;
+            }
+            if (batch != null) {
+                batch.flushTask.cancel(false);
+                send(batch);
+            }
+            timer.shutdownNow();
+        }
+    }
+
+    private static final class PendingBatch {
+        private final SumBatch pairs;
+        private final List<CompletableFuture<Integer>> results;
+        private ScheduledFuture<?> flushTask;
+
+        private PendingBatch(int capacity) {
+            this.pairs = new SumBatch(capacity);
+            this.results = new ArrayList<>(capacity);
+        }
+
+        private void add(int a, int b, CompletableFuture<Integer> result) {
+            pairs.add(a, b);
+            results.add(result);
+        }
+
+        private void fail(Throwable error) {
+            for (CompletableFuture<Integer> result : results) {
+                result.completeExceptionally(error);
+            }
+        }
+    }
+
+    /**
+     * Builder for {@link HmacApiClient}.
+     */
+    public static final class Builder {
+        private final String baseUrl;
+        private final String secretKey;
+        private String keyId;
+        private MacAlgorithm algorithm = MacAlgorithm.DEFAULT;
+        private ExecutorService executor;
+        private boolean printCurlCommands;
+        private boolean bodyDigestSigning;
+        private int maxInFlight = 256;
+        private int maxBatchSize;
+        private Duration maxBatchDelay;
+
+        private Builder(String baseUrl, String secretKey) {
+            this.baseUrl = baseUrl;
+            this.secretKey = secretKey;
+        }
+
+        /**
+         * Sets the key id sent with every request, identifying which client secret the server verifies against.
+         * Without it the server uses its default key.
+         */
+        public Builder keyId(String keyId) {
+            this.keyId = keyId;
+            return this;
+        }
+
+        /**
+         * Sets the MAC algorithm requests are signed with (default HMAC-SHA256). Other algorithms are
+         * named in a header and must be allowed for the client's key on the server.
+         */
+        public Builder algorithm(MacAlgorithm algorithm) {
+            this.algorithm = algorithm;
+            return this;
+        }
+
+        /**
+         * Runs the HTTP client's work on virtual threads, one per task. Blocking calls such as
+         * {@link #sum(int, int)} made from virtual threads then scale to high concurrency
+         * without a large platform thread pool.
+         */
+        public Builder virtualThreads() {
+            return executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+
+        /**
+         * Sets the executor used by the HTTP client. The client takes ownership and shuts it down on {@link #close()}.
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets whether an equivalent curl command is printed for every request, for debugging (default false).
+         */
+        public Builder printCurlCommands(boolean printCurlCommands) {
+            this.printCurlCommands = printCurlCommands;
+            return this;
+        }
+
+        /**
+         * Signs requests with the body-digest scheme: the client sends the body's SHA-256 digest in a
+         * header and the signature covers that digest instead of the body, so the server can check the
+         * signature before reading the body.
+         */
+        public Builder bodyDigestSigning() {
+            this.bodyDigestSigning = true;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of requests outstanding at once (default 256). Further calls wait
+         * for a slot, which applies backpressure to callers of {@link #sumAsync(int, int)}.
+         */
+        public Builder maxInFlight(int maxInFlight) {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("maxInFlight must be at least 1");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Coalesces {@link #sumAsync(int, int)} calls into batch requests: a batch is sent once it holds
+         * {@code maxBatchSize} pairs or its first call has waited {@code maxDelay}, whichever comes first.
+         */
+        public Builder autoBatch(int maxBatchSize, Duration maxDelay) {
+            if (maxBatchSize < 1) {
+                throw new IllegalArgumentException("maxBatchSize must be at least 1");
+            }
+            this.maxBatchSize = maxBatchSize;
+            this.maxBatchDelay = maxDelay;
+            return this;
+        }
+
+        public HmacApiClient build() {
+            return new HmacApiClient(this);
+        }
+    }
+
     /**
      * Example usage of the HMAC API client.
      */
     @SuppressWarnings("CallToPrintStackTrace")
     public static void main(String[] args) {
-        try {
-            // Create client with base URL and secret key
-            HmacApiClient client = new HmacApiClient("http://localhost:8080", "YourSecretKeyHere123!");
-
+        // Create client with base URL and secret key
+        try (HmacApiClient client = HmacApiClient.builder("http://localhost:8080", "YourSecretKeyHere123!")
+                .printCurlCommands(true)
+                .build()) {
             // Make authenticated request
             int result = client.sum(5, 3);
             System.out.println("Sum result: " + result);
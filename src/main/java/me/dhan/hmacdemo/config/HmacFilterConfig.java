@@ -0,0 +1,22 @@
+package me.dhan.hmacdemo.config;
+
+import jakarta.servlet.DispatcherType;
+import me.dhan.hmacdemo.security.HmacFilter;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HmacFilterConfig {
+
+    /**
+     * Registers the HMAC filter for async dispatches as well, so a request whose body was
+     * verified with non-blocking I/O can be handed to the controller after the async read.
+     */
+    @Bean
+    public FilterRegistrationBean<HmacFilter> hmacFilterRegistration(HmacFilter hmacFilter) {
+        FilterRegistrationBean<HmacFilter> registration = new FilterRegistrationBean<>(hmacFilter);
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+        return registration;
+    }
+}
@@ -0,0 +1,42 @@
+package me.dhan.hmacdemo.config;
+
+import me.dhan.hmacdemo.security.FileHmacKeyProvider;
+import me.dhan.hmacdemo.security.HmacKeyCache;
+import me.dhan.hmacdemo.security.HmacKeyProvider;
+import me.dhan.hmacdemo.security.InMemoryHmacKeyProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+@Configuration
+public class HmacKeyConfig {
+
+    /**
+     * Reads client keys from {@code hmac.keys.file} when it is set. Otherwise the single
+     * {@code hmac.secret} is registered under the default key id, which is what clients that
+     * send no key-id header are verified against.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public HmacKeyProvider hmacKeyProvider(@Value("${hmac.keys.file:}") String keysFile,
+                                           @Value("${hmac.default-key-id:default}") String defaultKeyId,
+                                           @Value("${hmac.secret:defaultSecretKey}") String hmacSecret) {
+        if (StringUtils.hasText(keysFile)) {
+            return new FileHmacKeyProvider(Path.of(keysFile));
+        }
+        return new InMemoryHmacKeyProvider(Map.of(defaultKeyId, hmacSecret));
+    }
+
+    @Bean
+    public HmacKeyCache hmacKeyCache(HmacKeyProvider hmacKeyProvider,
+                                     @Value("${hmac.keys.cache-ttl:5m}") Duration cacheTtl,
+                                     @Value("${hmac.keys.cache-max-size:1000}") int cacheMaxSize) {
+        return new HmacKeyCache(hmacKeyProvider, cacheTtl, cacheMaxSize);
+    }
+}
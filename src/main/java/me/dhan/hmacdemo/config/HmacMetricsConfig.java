@@ -0,0 +1,28 @@
+package me.dhan.hmacdemo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import me.dhan.hmacdemo.security.HmacMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HmacMetricsConfig {
+
+    /**
+     * Metrics for the HMAC filter. Tracing spans are only created when tracing is enabled,
+     * so verification allocates no observation state otherwise.
+     */
+    @Bean
+    public HmacMetrics hmacMetrics(MeterRegistry meterRegistry,
+                                   ObjectProvider<ObservationRegistry> observationRegistry,
+                                   @Value("${hmac.metrics.tracing.enabled:false}") boolean tracingEnabled,
+                                   @Value("${hmac.metrics.max-key-id-tags:100}") int maxKeyIdTags) {
+        ObservationRegistry registry = tracingEnabled
+                ? observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP)
+                : ObservationRegistry.NOOP;
+        return new HmacMetrics(meterRegistry, registry, maxKeyIdTags);
+    }
+}
@@ -0,0 +1,41 @@
+package me.dhan.hmacdemo.config;
+
+import me.dhan.hmacdemo.security.RouteMatcher;
+import me.dhan.hmacdemo.security.RoutePolicy;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+@Configuration
+public class HmacRouteConfig {
+
+    /**
+     * Compiles the routes listed under {@code hmac.routes} once at startup, so the filter resolves
+     * the policy of a request with a single lookup. Paths without a route require a signature.
+     */
+    @Bean
+    public RouteMatcher hmacRouteMatcher(Environment environment) {
+        List<RouteProperties> routes = Binder.get(environment)
+                .bind("hmac.routes", Bindable.listOf(RouteProperties.class))
+                .orElse(List.of());
+        return RouteMatcher.compile(routes.stream().map(RouteProperties::toRoute).toList());
+    }
+
+    /**
+     * One entry of {@code hmac.routes}, e.g. {@code hmac.routes[0].path=/swagger-ui/**} with
+     * {@code hmac.routes[0].exempt=true}. Settings that are not given keep their global value.
+     */
+    public record RouteProperties(String path, Boolean exempt, Boolean bodyDigestRequired, DataSize maxBodySize,
+                                  Boolean replay) {
+
+        RouteMatcher.Route toRoute() {
+            return new RouteMatcher.Route(path, new RoutePolicy(
+                    Boolean.TRUE.equals(exempt), Boolean.TRUE.equals(bodyDigestRequired), maxBodySize, replay));
+        }
+    }
+}
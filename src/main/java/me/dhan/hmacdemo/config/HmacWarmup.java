@@ -0,0 +1,177 @@
+package me.dhan.hmacdemo.config;
+
+import me.dhan.hmacdemo.client.HmacApiClient;
+import me.dhan.hmacdemo.model.SumBatch;
+import me.dhan.hmacdemo.security.HmacKeyProvider;
+import me.dhan.hmacdemo.security.HmacKeys;
+import me.dhan.hmacdemo.security.HmacSigner;
+import me.dhan.hmacdemo.security.HmacUtils;
+import me.dhan.hmacdemo.security.MacAlgorithm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Warms up the HMAC stack before the application reports ready.
+ * <p>
+ * Spring Boot calls application runners before it switches the readiness state to accepting traffic,
+ * so {@code /actuator/health/readiness} stays down until this has finished. The runner first signs
+ * bodies of a few sizes in process, which loads the MAC and digest providers, then sends signed
+ * requests over loopback to every endpoint: GET and POST sum with both signing schemes, the batch
+ * endpoint and the API docs. That takes the filter, Jackson, the controllers and springdoc through
+ * their first calls, and gives the JIT their hot paths, before live traffic arrives.
+ * <p>
+ * Warm-up requests are real requests: they are counted in the metrics and use up rate-limit tokens of
+ * the loopback address and the default key id. With rate limiting enabled, the requests are therefore
+ * capped at half the smaller burst, so they are neither throttled nor leave the buckets empty when
+ * traffic arrives. A failing warm-up is logged and does not prevent startup.
+ */
+@Component
+@ConditionalOnProperty(name = "hmac.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class HmacWarmup implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(HmacWarmup.class);
+    private static final int[] BODY_SIZES = {0, 1024, 64 * 1024};
+    // Signed requests sent per iteration of warmUpEndpoints
+    private static final int REQUESTS_PER_ITERATION = 4;
+
+    private final ApplicationContext applicationContext;
+    private final HmacKeyProvider keyProvider;
+
+    @Value("${hmac.warmup.iterations:100}")
+    private int iterations;
+
+    @Value("${hmac.default-key-id:default}")
+    private String defaultKeyId;
+
+    @Value("${hmac.rate-limit.enabled:false}")
+    private boolean rateLimitEnabled;
+
+    @Value("${hmac.rate-limit.key-id.burst:200}")
+    private int keyIdBurst;
+
+    @Value("${hmac.rate-limit.remote-address.burst:200}")
+    private int remoteAddressBurst;
+
+    @Value("${springdoc.api-docs.enabled:true}")
+    private boolean apiDocsEnabled;
+
+    @Value("${springdoc.api-docs.path:/v3/api-docs}")
+    private String apiDocsPath;
+
+    public HmacWarmup(ApplicationContext applicationContext, HmacKeyProvider keyProvider) {
+        this.applicationContext = applicationContext;
+        this.keyProvider = keyProvider;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        HmacKeys keys = keyProvider.findKeys(defaultKeyId).orElse(null);
+        if (keys == null) {
+            log.info("HMAC warm-up skipped: no key registered for the default key id '{}'", defaultKeyId);
+            return;
+        }
+
+        for (MacAlgorithm algorithm : keys.algorithms()) {
+            warmUpSigning(keys.currentSecret(), algorithm);
+        }
+
+        int port = applicationContext instanceof WebServerApplicationContext webContext
+                ? webContext.getWebServer().getPort()
+                : -1;
+        if (port <= 0) {
+            // Deployed as a war: the container owns the connector, only the in-process part ran
+            log.info("HMAC warm-up skipped the HTTP requests: no embedded web server");
+            return;
+        }
+
+        try {
+            warmUpEndpoints("http://localhost:" + port, keys);
+            log.info("HMAC warm-up finished in {} ms", Duration.ofNanos(System.nanoTime() - start).toMillis());
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.warn("HMAC warm-up stopped early: {}", e.toString());
+        }
+    }
+
+    private void warmUpSigning(String secret, MacAlgorithm algorithm) {
+        HmacSigner signer = new HmacSigner(secret, algorithm);
+        for (int size : BODY_SIZES) {
+            byte[] body = new byte[size];
+            Arrays.fill(body, (byte) 'x');
+            String timestamp = String.valueOf(System.currentTimeMillis());
+            for (int i = 0; i < iterations; i++) {
+                signer.sign("POST", "/api/demo/sum", null, timestamp, body);
+                HmacUtils.generateDigestSignature("POST", "/api/demo/sum", null, timestamp,
+                        HmacUtils.computeBodyDigest(body), secret, algorithm);
+            }
+        }
+    }
+
+    private void warmUpEndpoints(String baseUrl, HmacKeys keys) throws Exception {
+        MacAlgorithm algorithm = keys.algorithms().get(0);
+        int requestIterations = rateLimitEnabled
+                ? Math.min(iterations, Math.min(keyIdBurst, remoteAddressBurst) / 2 / REQUESTS_PER_ITERATION)
+                : iterations;
+        try (HttpClient httpClient = HttpClient.newHttpClient();
+             HmacApiClient client = HmacApiClient.builder(baseUrl, keys.currentSecret())
+                     .keyId(keys.keyId())
+                     .algorithm(algorithm)
+                     .build();
+             HmacApiClient digestClient = HmacApiClient.builder(baseUrl, keys.currentSecret())
+                     .keyId(keys.keyId())
+                     .algorithm(algorithm)
+                     .bodyDigestSigning()
+                     .build()) {
+            for (int i = 0; i < requestIterations; i++) {
+                client.sum(i, 1);
+                digestClient.sum(i, 2);
+
+                SumBatch batch = new SumBatch();
+                batch.add(i, 3);
+                batch.add(i, 4);
+                client.sumBatch(batch);
+
+                String query = "a=" + i + "&b=5";
+                String timestamp = String.valueOf(System.currentTimeMillis());
+                HttpRequest get = HttpRequest.newBuilder(URI.create(baseUrl + "/api/demo/sum?" + query))
+                        .header("X-KEY-ID", keys.keyId())
+                        .header("X-TIMESTAMP", timestamp)
+                        .header("X-HMAC-ALGORITHM", algorithm.getHeaderValue())
+                        .header("X-HMAC-SIGNATURE", HmacUtils.generateHmacSignature("GET", "/api/demo/sum", query,
+                                timestamp, null, keys.currentSecret(), algorithm))
+                        .GET()
+                        .build();
+                expectOk(httpClient.send(get, HttpResponse.BodyHandlers.discarding()), "GET /api/demo/sum");
+            }
+
+            if (apiDocsEnabled) {
+                HttpRequest apiDocs = HttpRequest.newBuilder(URI.create(baseUrl + apiDocsPath)).GET().build();
+                expectOk(httpClient.send(apiDocs, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)), apiDocsPath);
+            }
+        }
+    }
+
+    private static void expectOk(HttpResponse<?> response, String request) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(request + " answered " + response.statusCode());
+        }
+    }
+}
@@ -6,10 +6,12 @@ import io.swagger.v3.oas.models.info.Info;
 import io.swagger.v3.oas.models.security.SecurityRequirement;
 import io.swagger.v3.oas.models.security.SecurityScheme;
 import io.swagger.v3.oas.models.Components;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@ConditionalOnProperty(name = "springdoc.api-docs.enabled", havingValue = "true", matchIfMissing = true)
 public class OpenApiConfig {
 
     private static final String HMAC_SECURITY_SCHEME = "hmacAuth";
@@ -30,7 +32,7 @@ public class OpenApiConfig {
                                         .type(SecurityScheme.Type.APIKEY)
                                         .in(SecurityScheme.In.HEADER)
                                         .name("X-HMAC-SIGNATURE")
-                                        .description("HMAC signature calculated using HmacSHA256 algorithm")))
+                                        .description("HMAC signature calculated using HmacSHA256, or the algorithm named in the X-HMAC-ALGORITHM header")))
                 .addSecurityItem(new SecurityRequirement().addList(HMAC_SECURITY_SCHEME));
     }
 }
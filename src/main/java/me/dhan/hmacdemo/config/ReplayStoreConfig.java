@@ -0,0 +1,45 @@
+package me.dhan.hmacdemo.config;
+
+import me.dhan.hmacdemo.security.HmacHeaders;
+import me.dhan.hmacdemo.security.LocalReplayStore;
+import me.dhan.hmacdemo.security.ReplayCache;
+import me.dhan.hmacdemo.security.ReplayStore;
+import me.dhan.hmacdemo.security.TcpReplayStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Selects the shared replay store with {@code hmac.replay.store.type}. Without one, each node only
+ * remembers the requests it accepted itself, which is enough for a single node.
+ */
+@Configuration
+public class ReplayStoreConfig {
+
+    /**
+     * An in-process store, e.g. for tests or a single node.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "hmac.replay.store.type", havingValue = "embedded")
+    public ReplayStore embeddedReplayStore(@Value("${hmac.replay.bucket-width:10s}") Duration bucketWidth,
+                                           @Value("${hmac.replay.max-entries-per-bucket:65536}") int maxEntriesPerBucket) {
+        return new LocalReplayStore(new ReplayCache(HmacHeaders.REPLAY_WINDOW, bucketWidth, maxEntriesPerBucket));
+    }
+
+    /**
+     * A client for a {@link me.dhan.hmacdemo.security.TcpReplayStoreServer} shared by all nodes.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "hmac.replay.store.type", havingValue = "tcp")
+    public ReplayStore tcpReplayStore(@Value("${hmac.replay.store.address:localhost:7070}") String address,
+                                      @Value("${hmac.replay.store.connect-timeout:1s}") Duration connectTimeout,
+                                      @Value("${hmac.replay.store.timeout:100ms}") Duration timeout) {
+        return new TcpReplayStore(TcpReplayStore.parseAddress(address), connectTimeout, timeout);
+    }
+}
@@ -1,25 +1,43 @@
 package me.dhan.hmacdemo.controller;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import me.dhan.hmacdemo.model.SumBatch;
 import me.dhan.hmacdemo.model.SumRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
 
 @RestController
 @RequestMapping("/api/demo")
 @Tag(name = "Demo Controller", description = "API for demo operations")
 public class DemoController {
 
+    private final JsonFactory jsonFactory;
+
+    public DemoController(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
     @Operation(summary = "Tính tổng của hai số", description = "Nhận hai số nguyên và trả về tổng của chúng")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Tính tổng thành công",
@@ -47,4 +65,30 @@ public class DemoController {
             @RequestBody SumRequest request) {
         return request.getA() + request.getB();
     }
+
+    @Operation(summary = "Tính tổng của nhiều cặp số (batch)",
+            description = "Nhận một mảng JSON các cặp số hoặc NDJSON (mỗi dòng một cặp) và trả về mảng tổng theo đúng thứ tự. "
+                    + "Cả batch được xác thực bằng một chữ ký HMAC duy nhất")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Tính tổng thành công",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = Integer.class)))),
+            @ApiResponse(responseCode = "401", description = "HMAC không hợp lệ"),
+            @ApiResponse(responseCode = "400", description = "Batch không hợp lệ")
+    })
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Mảng các cặp số hoặc NDJSON", required = true,
+            content = {
+                    @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = SumRequest.class))),
+                    @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = SumRequest.class))
+            })
+    @PostMapping(value = "/sum/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public int[] sumBatch(InputStream body) throws IOException {
+        // Parse pairs straight into primitive arrays instead of binding a List<SumRequest>
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return SumBatch.read(parser).sums();
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid batch: " + e.getOriginalMessage(), e);
+        }
+    }
 }
@@ -0,0 +1,156 @@
+package me.dhan.hmacdemo.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A batch of sum operations, held as two primitive arrays instead of a list of {@link SumRequest}s.
+ * <p>
+ * The JSON form is either an array of pair objects, {@code [{"a":5,"b":3},{"a":1,"b":2}]},
+ * or a stream of pair objects, one per line (NDJSON). Both are read and written with Jackson's
+ * streaming API, so no object is created per pair.
+ */
+public class SumBatch {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] a;
+    private int[] b;
+    private int size;
+
+    public SumBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SumBatch(int initialCapacity) {
+        this.a = new int[Math.max(1, initialCapacity)];
+        this.b = new int[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * Appends a pair to the batch.
+     */
+    public void add(int first, int second) {
+        if (size == a.length) {
+            a = Arrays.copyOf(a, size * 2);
+            b = Arrays.copyOf(b, size * 2);
+        }
+        a[size] = first;
+        b[size] = second;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the sum of every pair, in batch order.
+     */
+    public int[] sums() {
+        int[] sums = new int[size];
+        for (int i = 0; i < size; i++) {
+            sums[i] = a[i] + b[i];
+        }
+        return sums;
+    }
+
+    /**
+     * Reads a batch from a JSON array of pairs or from a stream of root-level pair objects (NDJSON).
+     * Fields other than {@code a} and {@code b} are ignored; a missing field counts as 0.
+     *
+     * @param parser Parser positioned before the batch
+     * @return The batch, possibly empty
+     * @throws IOException if the input is not a valid batch
+     */
+    public static SumBatch read(JsonParser parser) throws IOException {
+        SumBatch batch = new SumBatch();
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return batch;
+        }
+
+        boolean array = token == JsonToken.START_ARRAY;
+        if (array) {
+            token = parser.nextToken();
+        }
+        while (token != null && token != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a pair object but found " + token);
+            }
+            readPair(parser, batch);
+            token = parser.nextToken();
+        }
+        if (array && token == null) {
+            throw new JsonParseException(parser, "Unterminated batch array");
+        }
+        if (array && parser.nextToken() != null) {
+            throw new JsonParseException(parser, "Unexpected content after batch array");
+        }
+        return batch;
+    }
+
+    private static void readPair(JsonParser parser, SumBatch batch) throws IOException {
+        int first = 0;
+        int second = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("a".equals(field)) {
+                first = parser.getIntValue();
+            } else if ("b".equals(field)) {
+                second = parser.getIntValue();
+            } else if (value.isStructStart()) {
+                parser.skipChildren();
+            }
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new JsonParseException(parser, "Unterminated pair object");
+        }
+        batch.add(first, second);
+    }
+
+    /**
+     * Writes the batch as a JSON array of pairs.
+     */
+    public void write(JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        for (int i = 0; i < size; i++) {
+            generator.writeStartObject();
+            generator.writeNumberField("a", a[i]);
+            generator.writeNumberField("b", b[i]);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Reads a JSON array of integers, such as the results of a batch, into a primitive array.
+     *
+     * @throws IOException if the input is not an array of integers
+     */
+    public static int[] readResults(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Expected an array of results");
+        }
+        int[] results = new int[DEFAULT_CAPACITY];
+        int count = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.VALUE_NUMBER_INT) {
+                throw new JsonParseException(parser, "Expected an integer result but found " + token);
+            }
+            if (count == results.length) {
+                results = Arrays.copyOf(results, count * 2);
+            }
+            results[count++] = parser.getIntValue();
+        }
+        return Arrays.copyOf(results, count);
+    }
+}
@@ -0,0 +1,85 @@
+package me.dhan.hmacdemo.security;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+
+import java.io.IOException;
+
+/**
+ * Reads a request body with Servlet non-blocking I/O.
+ * <p>
+ * The container calls {@link #onDataAvailable()} whenever bytes can be read without blocking,
+ * so no request thread waits on a slow client. Each chunk is fed to the verification session and the
+ * replay buffer as it arrives; once the body is complete, or exceeds the size limit, the
+ * {@link Completion} callback is invoked exactly once. Without a session the body is only buffered.
+ */
+final class AsyncBodyReader implements ReadListener {
+
+    /**
+     * Receives the outcome of the asynchronous read.
+     */
+    interface Completion {
+
+        /**
+         * Called once the whole body has been read, or as soon as it exceeds the size limit.
+         *
+         * @param tooLarge true if reading stopped because the body exceeds the maximum size
+         */
+        void onBodyRead(boolean tooLarge) throws IOException;
+
+        /**
+         * Called when reading fails.
+         */
+        void onReadError(Throwable error);
+    }
+
+    private final ServletInputStream inputStream;
+    private final VerificationSession session;
+    private final SpillingBodyBuffer body;
+    private final long maxBodyBytes;
+    private final Completion completion;
+    private final byte[] chunk;
+    private boolean done;
+
+    AsyncBodyReader(ServletInputStream inputStream, VerificationSession session, SpillingBodyBuffer body,
+                    long maxBodyBytes, int chunkSize, Completion completion) {
+        this.inputStream = inputStream;
+        this.session = session;
+        this.body = body;
+        this.maxBodyBytes = maxBodyBytes;
+        this.completion = completion;
+        this.chunk = new byte[chunkSize];
+    }
+
+    @Override
+    public void onDataAvailable() throws IOException {
+        int read;
+        while (!done && inputStream.isReady() && (read = inputStream.read(chunk)) != -1) {
+            if (body.size() + read > maxBodyBytes) {
+                done = true;
+                completion.onBodyRead(true);
+                return;
+            }
+            if (session != null) {
+                session.update(chunk, 0, read);
+            }
+            body.write(chunk, 0, read);
+        }
+    }
+
+    @Override
+    public void onAllDataRead() throws IOException {
+        if (!done) {
+            done = true;
+            completion.onBodyRead(false);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        if (!done) {
+            done = true;
+            completion.onReadError(t);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package me.dhan.hmacdemo.security;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the canonical form of a query string, which is what gets signed.
+ * <p>
+ * Every parameter is written as {@code key=value} with key and value percent-encoded per RFC 3986:
+ * unreserved characters ({@code A-Z a-z 0-9 - . _ ~}) as is, every other UTF-8 byte as {@code %XX}
+ * with upper-case hex digits. Parameters are sorted by encoded key; repeated keys keep the order
+ * of their values. {@code +} in a raw query is read as a space, as servlet containers do, and
+ * empty parameters are dropped.
+ * <p>
+ * The result does not depend on how the client spelled the query or on the iteration order of a
+ * parameter map. A query that is already canonical, which is what clients using {@link HmacSigner}
+ * send, is recognized in a single pass and returned as is without allocating.
+ */
+public final class CanonicalQuery {
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final Comparator<String[]> BY_KEY = Comparator.comparing(pair -> pair[0]);
+
+    private CanonicalQuery() {
+    }
+
+    /**
+     * Returns the canonical form of a raw query string.
+     *
+     * @param rawQuery Query string as sent on the request line, without the leading {@code ?}; may be null
+     * @return The canonical query, or the argument itself if it is null, empty or already canonical
+     */
+    public static String canonicalize(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty() || isCanonical(rawQuery)) {
+            return rawQuery;
+        }
+
+        List<String[]> pairs = new ArrayList<>();
+        int length = rawQuery.length();
+        int start = 0;
+        while (start < length) {
+            int end = rawQuery.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                int separator = rawQuery.indexOf('=', start);
+                if (separator < 0 || separator > end) {
+                    separator = end;
+                }
+                pairs.add(new String[]{
+                        encode(decode(rawQuery, start, separator)),
+                        separator < end ? encode(decode(rawQuery, separator + 1, end)) : ""
+                });
+            }
+            start = end + 1;
+        }
+        return join(pairs);
+    }
+
+    /**
+     * Returns the canonical query for already decoded parameters, e.g. a servlet parameter map.
+     *
+     * @param parameters Parameter names mapped to their values
+     * @return The canonical query, empty if there are no parameters
+     */
+    public static String fromParameters(Map<String, String[]> parameters) {
+        List<String[]> pairs = new ArrayList<>(parameters.size());
+        parameters.forEach((key, values) -> {
+            String encodedKey = encode(key.getBytes(StandardCharsets.UTF_8));
+            for (String value : values) {
+                pairs.add(new String[]{encodedKey, encode(value.getBytes(StandardCharsets.UTF_8))});
+            }
+        });
+        return join(pairs);
+    }
+
+    private static String join(List<String[]> pairs) {
+        // List.sort is stable, so values of a repeated key keep their order
+        pairs.sort(BY_KEY);
+        StringBuilder query = new StringBuilder();
+        for (String[] pair : pairs) {
+            if (!query.isEmpty()) {
+                query.append('&');
+            }
+            query.append(pair[0]).append('=').append(pair[1]);
+        }
+        return query.toString();
+    }
+
+    /**
+     * Checks in one pass whether a query is already in canonical form: every parameter non-empty with
+     * exactly one {@code =}, only unreserved characters or necessary upper-case escapes, keys in order.
+     */
+    private static boolean isCanonical(String query) {
+        int length = query.length();
+        int previousKeyStart = -1;
+        int previousKeyEnd = -1;
+        int pairStart = 0;
+        int keyEnd = -1;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? query.charAt(i) : '&';
+            if (c == '&') {
+                if (keyEnd < 0) {
+                    // Empty parameter or missing '='
+                    return false;
+                }
+                if (previousKeyStart >= 0
+                        && compare(query, previousKeyStart, previousKeyEnd, pairStart, keyEnd) > 0) {
+                    return false;
+                }
+                previousKeyStart = pairStart;
+                previousKeyEnd = keyEnd;
+                pairStart = i + 1;
+                keyEnd = -1;
+            } else if (c == '=') {
+                if (keyEnd >= 0) {
+                    return false;
+                }
+                keyEnd = i;
+            } else if (c == '%') {
+                if (i + 2 >= length) {
+                    return false;
+                }
+                int high = upperHexValue(query.charAt(i + 1));
+                int low = upperHexValue(query.charAt(i + 2));
+                if (high < 0 || low < 0 || isUnreserved(high << 4 | low)) {
+                    return false;
+                }
+                i += 2;
+            } else if (!isUnreserved(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compare(String query, int firstStart, int firstEnd, int secondStart, int secondEnd) {
+        int firstLength = firstEnd - firstStart;
+        int secondLength = secondEnd - secondStart;
+        int common = Math.min(firstLength, secondLength);
+        for (int i = 0; i < common; i++) {
+            int difference = query.charAt(firstStart + i) - query.charAt(secondStart + i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return firstLength - secondLength;
+    }
+
+    /**
+     * Decodes one raw key or value into the bytes it stands for.
+     * A {@code %} that does not start a valid escape is kept literally.
+     */
+    private static byte[] decode(String raw, int start, int end) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(end - start);
+        for (int i = start; i < end; i++) {
+            char c = raw.charAt(i);
+            if (c == '+') {
+                bytes.write(' ');
+            } else if (c == '%' && i + 2 < end
+                    && hexValue(raw.charAt(i + 1)) >= 0 && hexValue(raw.charAt(i + 2)) >= 0) {
+                bytes.write(hexValue(raw.charAt(i + 1)) << 4 | hexValue(raw.charAt(i + 2)));
+                i += 2;
+            } else if (c < 0x80) {
+                bytes.write(c);
+            } else {
+                int codePointEnd = Character.isHighSurrogate(c) && i + 1 < end ? i + 2 : i + 1;
+                bytes.writeBytes(raw.substring(i, codePointEnd).getBytes(StandardCharsets.UTF_8));
+                i = codePointEnd - 1;
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String encode(byte[] bytes) {
+        StringBuilder encoded = new StringBuilder(bytes.length + 8);
+        for (byte b : bytes) {
+            int value = b & 0xFF;
+            if (isUnreserved(value)) {
+                encoded.append((char) value);
+            } else {
+                encoded.append('%').append(HEX_DIGITS[value >> 4]).append(HEX_DIGITS[value & 0x0F]);
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static boolean isUnreserved(int c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+
+    private static int hexValue(char c) {
+        return c >= 'a' && c <= 'f' ? c - 'a' + 10 : upperHexValue(c);
+    }
+
+    private static int upperHexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,91 @@
+package me.dhan.hmacdemo.security;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Reads client secrets from a properties file, one client per line:
+ * <pre>
+ * # keyId=currentSecret[,previousSecret][;algorithm[,algorithm...]]
+ * billing-service=newSecret,oldSecret
+ * reporting=anotherSecret;HMAC-SHA512,HMAC-SHA256
+ * </pre>
+ * The optional list after the semicolon names the {@link MacAlgorithm algorithms} the client may sign
+ * with, by their header name; without it only {@link MacAlgorithm#DEFAULT} is accepted. The file is
+ * read again when its modification time changes, so keys can be rotated without a restart.
+ */
+public class FileHmacKeyProvider implements HmacKeyProvider {
+
+    private final Path file;
+    private volatile Snapshot snapshot = new Snapshot(null, Map.of());
+
+    public FileHmacKeyProvider(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public Optional<HmacKeys> findKeys(String keyId) {
+        return Optional.ofNullable(currentKeys().get(keyId));
+    }
+
+    private Map<String, HmacKeys> currentKeys() {
+        try {
+            FileTime lastModified = Files.getLastModifiedTime(file);
+            Snapshot current = snapshot;
+            if (!lastModified.equals(current.lastModified())) {
+                current = new Snapshot(lastModified, load());
+                snapshot = current;
+            }
+            return current.keys();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading HMAC key file " + file, e);
+        }
+    }
+
+    private Map<String, HmacKeys> load() throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        Map<String, HmacKeys> keys = new HashMap<>();
+        for (String keyId : properties.stringPropertyNames()) {
+            String[] value = properties.getProperty(keyId).split(";", 2);
+            String[] secrets = value[0].split(",", 2);
+            String previousSecret = secrets.length > 1 && !secrets[1].isBlank() ? secrets[1].trim() : null;
+            List<MacAlgorithm> algorithms = value.length > 1 ? parseAlgorithms(keyId, value[1]) : null;
+            keys.put(keyId, new HmacKeys(keyId, secrets[0].trim(), previousSecret, algorithms));
+        }
+        return Map.copyOf(keys);
+    }
+
+    private List<MacAlgorithm> parseAlgorithms(String keyId, String names) {
+        List<MacAlgorithm> algorithms = new ArrayList<>();
+        for (String name : names.split(",")) {
+            if (name.isBlank()) {
+                continue;
+            }
+            MacAlgorithm algorithm = MacAlgorithm.fromHeader(name.trim());
+            if (algorithm == null) {
+                throw new IllegalArgumentException("Unknown MAC algorithm '" + name.trim() + "' for key id "
+                        + keyId + " in " + file);
+            }
+            algorithms.add(algorithm);
+        }
+        return algorithms;
+    }
+
+    private record Snapshot(FileTime lastModified, Map<String, HmacKeys> keys) {
+    }
+}
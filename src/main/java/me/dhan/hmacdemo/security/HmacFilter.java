@@ -1,28 +1,201 @@
 package me.dhan.hmacdemo.security;
 
+import io.micrometer.observation.Observation;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StreamUtils;
 import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
 public class HmacFilter implements Filter {
 
-    private static final String HMAC_HEADER_NAME = "X-HMAC-SIGNATURE";
-    private static final String TIMESTAMP_HEADER_NAME = "X-TIMESTAMP";
-    private static final long TIMESTAMP_VALIDITY_MINUTES = 5;
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+    private static final int READ_CHUNK_SIZE = 8192;
+    private static final String VERIFIED_BODY_ATTRIBUTE = HmacFilter.class.getName() + ".VERIFIED_BODY";
 
-    @Value("${hmac.secret:defaultSecretKey}")
-    private String hmacSecret;
+    private final HmacKeyCache keyCache;
+    private final HmacMetrics metrics;
+    private final ReplayStore replayStore;
+    private final RouteMatcher routes;
+
+    @Value("${hmac.default-key-id:default}")
+    private String defaultKeyId;
+
+    @Value("${hmac.body.max-size:10MB}")
+    private DataSize maxBodySize;
+
+    @Value("${hmac.body.spill-threshold:64KB}")
+    private DataSize spillThreshold;
+
+    @Value("${hmac.body.spill-directory:}")
+    private String spillDirectory;
+
+    @Value("${hmac.async.enabled:false}")
+    private boolean asyncEnabled;
+
+    @Value("${hmac.async.timeout:30s}")
+    private Duration asyncTimeout;
+
+    @Value("${hmac.offload.enabled:false}")
+    private boolean offloadEnabled;
+
+    @Value("${hmac.offload.threshold:1MB}")
+    private DataSize offloadThreshold;
+
+    @Value("${hmac.offload.threads:0}")
+    private int offloadThreads;
+
+    @Value("${hmac.offload.queue-capacity:64}")
+    private int offloadQueueCapacity;
+
+    @Value("${hmac.reject.close-connection:false}")
+    private boolean closeConnectionOnRejection;
+
+    @Value("${hmac.reject.format:text}")
+    private RejectionFormat rejectionFormat = RejectionFormat.TEXT;
+
+    @Value("${hmac.replay.enabled:true}")
+    private boolean replayProtectionEnabled;
+
+    @Value("${hmac.replay.bucket-width:10s}")
+    private Duration replayBucketWidth;
+
+    @Value("${hmac.replay.max-entries-per-bucket:65536}")
+    private int replayMaxEntriesPerBucket;
+
+    @Value("${hmac.replay.skip-safe-methods:false}")
+    private boolean replaySkipSafeMethods;
+
+    @Value("${hmac.replay.store.timeout:100ms}")
+    private Duration replayStoreTimeout;
+
+    @Value("${hmac.replay.store.fail-open:false}")
+    private boolean replayStoreFailOpen;
+
+    @Value("${hmac.replay.store.max-batch-size:256}")
+    private int replayStoreMaxBatchSize;
+
+    @Value("${hmac.replay.store.max-in-flight-batches:4}")
+    private int replayStoreMaxInFlightBatches;
+
+    @Value("${hmac.verification-cache.enabled:false}")
+    private boolean verificationCacheEnabled;
+
+    @Value("${hmac.verification-cache.max-entries:10000}")
+    private int verificationCacheMaxEntries;
+
+    @Value("${hmac.verification-cache.cache-responses:false}")
+    private boolean cacheResponses;
+
+    @Value("${hmac.verification-cache.max-response-size:64KB}")
+    private DataSize maxCachedResponseSize;
+
+    @Value("${hmac.rate-limit.enabled:false}")
+    private boolean rateLimitEnabled;
+
+    @Value("${hmac.rate-limit.table-size:4096}")
+    private int rateLimitTableSize;
+
+    @Value("${hmac.rate-limit.key-id.permits-per-second:100}")
+    private double keyIdPermitsPerSecond;
+
+    @Value("${hmac.rate-limit.key-id.burst:200}")
+    private int keyIdBurst;
+
+    @Value("${hmac.rate-limit.remote-address.permits-per-second:100}")
+    private double remoteAddressPermitsPerSecond;
+
+    @Value("${hmac.rate-limit.remote-address.burst:200}")
+    private int remoteAddressBurst;
+
+    @Value("${hmac.rate-limit.failures.permits-per-second:1}")
+    private double failurePermitsPerSecond;
+
+    @Value("${hmac.rate-limit.failures.burst:10}")
+    private int failureBurst;
+
+    private ReplayProtection replayProtection;
+    private VerificationCache verificationCache;
+    private RateLimiter keyIdLimiter;
+    private RateLimiter remoteAddressLimiter;
+    private RateLimiter failureLimiter;
+    private MacOffload macOffload;
+
+    public HmacFilter(HmacKeyCache keyCache, HmacMetrics metrics) {
+        this(keyCache, metrics, null);
+    }
+
+    public HmacFilter(HmacKeyCache keyCache, HmacMetrics metrics, @Nullable ReplayStore replayStore) {
+        this(keyCache, metrics, replayStore, null);
+    }
+
+    /**
+     * @param replayStore Store shared by all nodes for replay protection, or null to protect this node only
+     * @param routes      Per-route policies, or null to require a signature on every path
+     */
+    @Autowired
+    public HmacFilter(HmacKeyCache keyCache, HmacMetrics metrics, @Nullable ReplayStore replayStore,
+                      @Nullable RouteMatcher routes) {
+        this.keyCache = keyCache;
+        this.metrics = metrics;
+        this.replayStore = replayStore;
+        this.routes = routes != null ? routes : RouteMatcher.EMPTY;
+    }
+
+    @PostConstruct
+    void initReplayCache() {
+        if (replayProtectionEnabled) {
+            // The node-local cache doubles as the near-cache in front of a shared store
+            ReplayCache nearCache = new ReplayCache(HmacHeaders.REPLAY_WINDOW, replayBucketWidth, replayMaxEntriesPerBucket);
+            replayProtection = replayStore == null
+                    ? new ReplayProtection(nearCache)
+                    : new ReplayProtection(nearCache, replayStore, replayStoreTimeout, replayStoreFailOpen,
+                            replayStoreMaxBatchSize, replayStoreMaxInFlightBatches, metrics);
+        }
+        if (verificationCacheEnabled) {
+            verificationCache = new VerificationCache(verificationCacheMaxEntries);
+        }
+        if (rateLimitEnabled) {
+            keyIdLimiter = new RateLimiter(keyIdPermitsPerSecond, keyIdBurst, rateLimitTableSize);
+            remoteAddressLimiter = new RateLimiter(remoteAddressPermitsPerSecond, remoteAddressBurst, rateLimitTableSize);
+            failureLimiter = new RateLimiter(failurePermitsPerSecond, failureBurst, rateLimitTableSize);
+        }
+        if (offloadEnabled) {
+            int threads = offloadThreads > 0 ? offloadThreads : Runtime.getRuntime().availableProcessors();
+            macOffload = new MacOffload(threads, offloadQueueCapacity);
+            metrics.bindOffload(macOffload);
+        }
+    }
+
+    /**
+     * Stops the offload pool. Spring calls this when the context closes, and the container may call it
+     * again when it takes the filter out of service; the second call does nothing.
+     */
+    @Override
+    @PreDestroy
+    public void destroy() {
+        if (macOffload != null) {
+            macOffload.close();
+        }
+    }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
@@ -31,165 +204,656 @@ public class HmacFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-        // Skip HMAC validation for Swagger UI and API docs
+        if (httpRequest.getDispatcherType() == DispatcherType.ASYNC) {
+            continueAfterAsyncVerification(httpRequest, response, chain);
+            return;
+        }
+
+        // Skip HMAC validation for exempt routes such as Swagger UI, API docs and health probes
         String requestURI = httpRequest.getRequestURI();
-        if (isSwaggerRequest(requestURI)) {
+        RoutePolicy route = routes.match(requestURI);
+        if (route.exempt()) {
             chain.doFilter(request, response);
             return;
         }
 
-        // Wrap the request to allow reading the body multiple times
-        CachedBodyHttpServletRequest cachedBodyRequest = new CachedBodyHttpServletRequest(httpRequest);
+        Observation observation = metrics.startVerification(httpRequest.getMethod());
 
-        // Validate timestamp
-        String timestamp = cachedBodyRequest.getHeader(TIMESTAMP_HEADER_NAME);
+        // Throttle addresses before spending anything on them; unauthenticated failures cost tokens from a
+        // stricter bucket. The key id is not authenticated yet, so its bucket is only charged once verified.
+        if (rateLimitEnabled && isThrottled(httpRequest, httpResponse, observation)) {
+            return;
+        }
+
+        // Run every check that needs only the headers first, so a request that cannot be
+        // authentic is rejected without reading its body
+        String version = httpRequest.getHeader(HmacHeaders.VERSION);
+        boolean digestScheme = HmacHeaders.isDigestScheme(version);
+        if (!HmacHeaders.isSupportedVersion(version)) {
+            reject(httpRequest, httpResponse, HmacRejection.UNSUPPORTED_VERSION, null, observation);
+            return;
+        }
+        if (route.bodyDigestRequired() && !digestScheme) {
+            reject(httpRequest, httpResponse, HmacRejection.BODY_DIGEST_REQUIRED, null, observation);
+            return;
+        }
+
+        MacAlgorithm algorithm = HmacHeaders.resolveAlgorithm(httpRequest.getHeader(HmacHeaders.ALGORITHM));
+        if (algorithm == null) {
+            reject(httpRequest, httpResponse, HmacRejection.UNSUPPORTED_ALGORITHM, null, observation);
+            return;
+        }
+
+        String timestamp = httpRequest.getHeader(HmacHeaders.TIMESTAMP);
         if (!StringUtils.hasText(timestamp)) {
-            httpResponse.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            httpResponse.getWriter().write("Missing timestamp header");
+            reject(httpRequest, httpResponse, HmacRejection.MISSING_TIMESTAMP, null, observation);
             return;
         }
 
-        if (!isValidTimestamp(timestamp)) {
-            httpResponse.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            httpResponse.getWriter().write("Expired or invalid timestamp");
+        if (!HmacHeaders.isValidTimestamp(timestamp)) {
+            reject(httpRequest, httpResponse, HmacRejection.INVALID_TIMESTAMP, null, observation);
             return;
         }
 
-        // Validate HMAC signature
-        String hmacHeader = cachedBodyRequest.getHeader(HMAC_HEADER_NAME);
+        String hmacHeader = httpRequest.getHeader(HmacHeaders.SIGNATURE);
         if (!StringUtils.hasText(hmacHeader)) {
-            httpResponse.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            httpResponse.getWriter().write("Missing HMAC signature header");
+            reject(httpRequest, httpResponse, HmacRejection.MISSING_SIGNATURE, null, observation);
+            return;
+        }
+
+        // Resolve the client's keys for the algorithm; requests without a key id use the default key
+        String keyId = httpRequest.getHeader(HmacHeaders.KEY_ID);
+        if (!StringUtils.hasText(keyId)) {
+            keyId = defaultKeyId;
+        }
+        HmacKeyCache.ResolvedKeys keys = keyCache.resolve(keyId, algorithm);
+        if (keys == null) {
+            if (keyCache.resolve(keyId) == null) {
+                reject(httpRequest, httpResponse, HmacRejection.UNKNOWN_KEY_ID, null, observation);
+            } else {
+                reject(httpRequest, httpResponse, HmacRejection.ALGORITHM_NOT_ALLOWED, keyId, observation);
+            }
             return;
         }
 
-        String calculatedHmac = calculateHmac(cachedBodyRequest, timestamp);
+        if (!HmacHeaders.isWellFormedSignature(hmacHeader, keys.current().macLength())) {
+            reject(httpRequest, httpResponse, HmacRejection.MALFORMED_SIGNATURE, keys.keyId(), observation);
+            return;
+        }
+
+        String bodyDigest = null;
+        if (digestScheme) {
+            bodyDigest = httpRequest.getHeader(HmacHeaders.BODY_DIGEST);
+            if (!StringUtils.hasText(bodyDigest)) {
+                reject(httpRequest, httpResponse, HmacRejection.MISSING_BODY_DIGEST, keys.keyId(), observation);
+                return;
+            }
+            if (!HmacHeaders.isWellFormedBodyDigest(bodyDigest)) {
+                reject(httpRequest, httpResponse, HmacRejection.MALFORMED_BODY_DIGEST, keys.keyId(), observation);
+                return;
+            }
+        }
+
+        // Idempotent requests whose exact signature was verified before skip the MAC computation
+        boolean checkReplay = route.replayCheck() != null
+                ? route.replayCheck()
+                : !(replaySkipSafeMethods && isSafeMethod(httpRequest.getMethod()));
+        String cacheKey = null;
+        if (verificationCache != null && !digestScheme && isCacheable(httpRequest)) {
+            cacheKey = VerificationCache.key(keys.keyId(), httpRequest.getMethod(), requestURI,
+                    CanonicalQuery.canonicalize(resolveQueryString(httpRequest)), timestamp, hmacHeader);
+            VerificationCache.Entry cached = verificationCache.get(cacheKey, keys, System.currentTimeMillis());
+            metrics.recordCacheLookup(cached != null);
+            if (cached != null) {
+                if (!acceptVerified(httpRequest, httpResponse, keys.keyId(), cached.mac(), timestamp, checkReplay,
+                        observation)) {
+                    return;
+                }
+                if (cached.response() != null) {
+                    writeCachedResponse(httpResponse, cached.response());
+                } else {
+                    chain.doFilter(request, response);
+                }
+                return;
+            }
+        }
 
-        if (!hmacHeader.equals(calculatedHmac)) {
-            httpResponse.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            httpResponse.getWriter().write("Invalid HMAC signature");
+        // Reject bodies that announce a size above the limit before reading anything
+        long maxBodyBytes = (route.maxBodySize() != null ? route.maxBodySize() : maxBodySize).toBytes();
+        if (httpRequest.getContentLengthLong() > maxBodyBytes) {
+            reject(httpRequest, httpResponse, HmacRejection.BODY_TOO_LARGE, keys.keyId(), observation);
             return;
         }
 
-        chain.doFilter(cachedBodyRequest, response);
+        // Bodies announced above the offload threshold are hashed on the offload pool instead of the
+        // request thread; when its queue is full they are shed before anything is read
+        boolean offload = macOffload != null && httpRequest.getContentLengthLong() > offloadThreshold.toBytes();
+        if (offload && macOffload.isSaturated()) {
+            reject(httpRequest, httpResponse, HmacRejection.VERIFICATION_OVERLOADED, keys.keyId(), observation);
+            return;
+        }
+
+        long canonicalizationStart = System.nanoTime();
+        VerificationSession session = new VerificationSession(keys,
+                httpRequest.getMethod(), requestURI, resolveQueryString(httpRequest), bodyDigest);
+        metrics.recordCanonicalization(System.nanoTime() - canonicalizationStart);
+
+        // With the body-digest scheme the signed envelope is complete already: check it before the body
+        if (digestScheme && session.verify(timestamp, hmacHeader) == null) {
+            session.close();
+            metrics.recordMac(session.algorithm(), session.macNanos());
+            reject(httpRequest, httpResponse, HmacRejection.INVALID_SIGNATURE, keys.keyId(), observation);
+            return;
+        }
+
+        SpillingBodyBuffer body = new SpillingBodyBuffer(Math.toIntExact(spillThreshold.toBytes()), resolveSpillDirectory());
+
+        // Read the body without holding a request thread when async I/O is enabled
+        if (asyncEnabled && cacheKey == null && httpRequest.isAsyncSupported() && httpRequest.getContentLengthLong() != 0) {
+            startAsyncVerification(httpRequest, session, body, maxBodyBytes, timestamp, hmacHeader, checkReplay,
+                    offload, observation);
+            return;
+        }
+
+        try (session; body) {
+            // Stream the body into the signature while keeping a copy for the controller; an offloaded
+            // body is only buffered here and hashed on the offload pool once it is complete
+            long readStart = System.nanoTime();
+            boolean withinLimit;
+            try {
+                withinLimit = readBody(httpRequest, offload ? null : session, body, maxBodyBytes);
+            } catch (IOException e) {
+                // End the observation like any other outcome; the client may already be gone
+                observation.error(e);
+                reject(httpRequest, httpResponse, HmacRejection.BODY_READ_ERROR, session.keyId(), observation);
+                return;
+            }
+            metrics.recordBodyRead(System.nanoTime() - readStart - session.macNanos());
+            if (!withinLimit) {
+                reject(httpRequest, httpResponse, HmacRejection.BODY_TOO_LARGE, session.keyId(), observation);
+                return;
+            }
+
+            if (offload) {
+                // The request thread waits for the pool; see MacOffload#run for why that is acceptable.
+                // Enable async I/O to release the thread instead.
+                try {
+                    macOffload.run(() -> hashBody(session, body));
+                } catch (RejectedExecutionException e) {
+                    reject(httpRequest, httpResponse, HmacRejection.VERIFICATION_OVERLOADED, session.keyId(),
+                            observation);
+                    return;
+                } catch (IOException e) {
+                    // The spilled body could not be read back
+                    observation.error(e);
+                    reject(httpRequest, httpResponse, HmacRejection.BODY_READ_ERROR, session.keyId(), observation);
+                    return;
+                }
+            }
+
+            if (!verifySignature(httpRequest, httpResponse, session, timestamp, hmacHeader, checkReplay,
+                    observation)) {
+                return;
+            }
+
+            if (cacheKey != null) {
+                long now = System.currentTimeMillis();
+                long expiresAt = Long.parseLong(timestamp) + HmacHeaders.TIMESTAMP_VALIDITY.toMillis();
+                verificationCache.put(cacheKey, keys, session.verify(timestamp, hmacHeader).clone(), expiresAt, now);
+                if (cacheResponses) {
+                    continueAndCacheResponse(new CachedBodyHttpServletRequest(httpRequest, body), httpResponse,
+                            chain, cacheKey);
+                    return;
+                }
+            }
+
+            // Replay the verified body to the rest of the chain
+            chain.doFilter(new CachedBodyHttpServletRequest(httpRequest, body), response);
+        }
+    }
+
+    /**
+     * Passes a request to the rest of the chain and stores a successful, small enough response
+     * with its verification.
+     */
+    private void continueAndCacheResponse(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                                          String cacheKey) throws IOException, ServletException {
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, responseWrapper);
+        if (!request.isAsyncStarted() && responseWrapper.getStatus() == HttpServletResponse.SC_OK
+                && responseWrapper.getContentSize() <= maxCachedResponseSize.toBytes()) {
+            verificationCache.putResponse(cacheKey, new VerificationCache.CachedResponse(
+                    responseWrapper.getStatus(), responseWrapper.getContentType(), responseWrapper.getContentAsByteArray()));
+        }
+        responseWrapper.copyBodyToResponse();
+    }
+
+    private void writeCachedResponse(HttpServletResponse response, VerificationCache.CachedResponse cached)
+            throws IOException {
+        response.setStatus(cached.status());
+        if (cached.contentType() != null) {
+            response.setContentType(cached.contentType());
+        }
+        response.setContentLength(cached.body().length);
+        response.getOutputStream().write(cached.body());
     }
 
-    private boolean isSwaggerRequest(String requestURI) {
-        return requestURI.contains("/swagger-ui") || 
-               requestURI.contains("/api-docs") || 
-               requestURI.equals("/") || 
-               requestURI.contains("/favicon.ico");
+    private static boolean isSafeMethod(String method) {
+        return "GET".equals(method) || "HEAD".equals(method);
     }
 
-    private String calculateHmac(HttpServletRequest request, String timestamp) {
-        // Get the request method and URI
-        String method = request.getMethod();
-        String uri = request.getRequestURI();
+    /**
+     * Only bodiless GET requests are cached: their signature covers nothing the cache key does not.
+     */
+    private static boolean isCacheable(HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) && request.getContentLengthLong() <= 0
+                && request.getHeader("Transfer-Encoding") == null;
+    }
 
-        // Try to get query string first
-        String queryString = request.getQueryString();
+    /**
+     * Compares the signature header, already checked for format, with the signature computed over
+     * the body, then checks for a replay. Writes the rejection to the response when verification fails.
+     *
+     * @return true if the request is authentic
+     */
+    private boolean verifySignature(HttpServletRequest request, HttpServletResponse response,
+                                    VerificationSession session, String timestamp, String hmacHeader,
+                                    boolean checkReplay, Observation observation) throws IOException {
+        String keyId = session.keyId();
+
+        byte[] calculatedHmac = session.verify(timestamp, hmacHeader);
+        boolean bodyMatchesDigest = calculatedHmac != null && session.bodyMatchesDigest();
+        metrics.recordMac(session.algorithm(), session.macNanos());
+        if (calculatedHmac == null) {
+            reject(request, response, HmacRejection.INVALID_SIGNATURE, keyId, observation);
+            return false;
+        }
 
-        // If query string is null (which happens in MockMvc tests), build it from parameters
-        if (queryString == null && !request.getParameterMap().isEmpty()) {
-            StringBuilder paramsBuilder = new StringBuilder();
-            request.getParameterMap().forEach((key, values) -> {
-                for (String value : values) {
-                    if (!paramsBuilder.isEmpty()) {
-                        paramsBuilder.append("&");
-                    }
-                    paramsBuilder.append(key).append("=").append(value);
+        if (!bodyMatchesDigest) {
+            reject(request, response, HmacRejection.BODY_DIGEST_MISMATCH, keyId, observation);
+            return false;
+        }
+
+        return acceptVerified(request, response, keyId, calculatedHmac, timestamp, checkReplay, observation);
+    }
+
+    /**
+     * Accepts a request whose signature is authentic unless its client is over its rate or it is a replay.
+     * Writes the rejection to the response when it is not accepted.
+     *
+     * @return true if the request is accepted
+     */
+    private boolean acceptVerified(HttpServletRequest request, HttpServletResponse response, String keyId,
+                                   byte[] calculatedHmac, String timestamp, boolean checkReplay,
+                                   Observation observation) throws IOException {
+        // Charged before the replay check, so a throttled request is not recorded and can be retried as is
+        if (keyIdLimiter != null) {
+            long waitNanos = keyIdLimiter.tryAcquire(keyId);
+            if (waitNanos > 0) {
+                setRetryAfter(response, waitNanos);
+                reject(request, response, HmacRejection.RATE_LIMITED, keyId, observation);
+                return false;
+            }
+        }
+
+        // Reject a signed request that was already accepted inside the validity window
+        if (replayProtection != null && checkReplay) {
+            switch (replayProtection.checkAndRecord(ReplayCache.fingerprint(calculatedHmac), Long.parseLong(timestamp))) {
+                case REPLAYED, EXPIRED -> {
+                    reject(request, response, HmacRejection.REPLAYED, keyId, observation);
+                    return false;
                 }
-            });
-            queryString = paramsBuilder.toString();
+                case FULL, UNAVAILABLE -> {
+                    reject(request, response, HmacRejection.REPLAY_CHECK_UNAVAILABLE, keyId, observation);
+                    return false;
+                }
+                case ACCEPTED -> {
+                }
+            }
         }
 
-        // Get request body if available
-        String requestBody = null;
-        if (request instanceof CachedBodyHttpServletRequest) {
-            requestBody = ((CachedBodyHttpServletRequest) request).getBody();
+        metrics.recordAccepted(keyId);
+        observation.lowCardinalityKeyValue("outcome", "accepted").stop();
+        return true;
+    }
+
+    /**
+     * Takes a token for the caller's address, unless the address has used up its verification failures.
+     * Writes a 429 with {@code Retry-After} when the caller is throttled.
+     * <p>
+     * The address is the one the container reports; behind a reverse proxy, {@code server.forward-headers-strategy}
+     * makes it the client's address from the forwarded headers.
+     *
+     * @return true if the request was rejected
+     */
+    private boolean isThrottled(HttpServletRequest request, HttpServletResponse response,
+                                Observation observation) throws IOException {
+        String remoteAddress = request.getRemoteAddr();
+        long waitNanos = failureLimiter.waitTime(remoteAddress);
+        HmacRejection rejection = HmacRejection.TOO_MANY_FAILURES;
+        if (waitNanos == 0) {
+            waitNanos = remoteAddressLimiter.tryAcquire(remoteAddress);
+            rejection = HmacRejection.RATE_LIMITED;
         }
+        if (waitNanos == 0) {
+            return false;
+        }
+        setRetryAfter(response, waitNanos);
+        reject(request, response, rejection, null, observation);
+        return true;
+    }
 
-        // Use HmacUtils to generate the signature with timestamp and request body
-        return HmacUtils.generateHmacSignature(method, uri, queryString, timestamp, requestBody, hmacSecret);
+    private static void setRetryAfter(HttpServletResponse response, long waitNanos) {
+        // Round up so a client retrying after the advertised delay finds a token
+        response.setHeader("Retry-After", String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1)));
     }
 
     /**
-     * Validates if the provided timestamp is within the allowed time window.
-     * 
-     * @param timestamp The timestamp to validate (milliseconds since epoch)
-     * @return true if the timestamp is valid, false otherwise
+     * Writes a rejection to the response and records it.
      */
-    private boolean isValidTimestamp(String timestamp) {
-        try {
-            long timestampValue = Long.parseLong(timestamp);
-            Instant requestTime = Instant.ofEpochMilli(timestampValue);
-            Instant now = Instant.now();
-
-            // Check if timestamp is not in the future (with a small tolerance)
-            if (requestTime.isAfter(now.plus(1, ChronoUnit.MINUTES))) {
+    private void reject(HttpServletRequest request, HttpServletResponse response, HmacRejection rejection,
+                        String keyId, Observation observation) throws IOException {
+        if (failureLimiter != null && rejection.isVerificationFailure()) {
+            failureLimiter.tryAcquire(request.getRemoteAddr());
+        }
+        metrics.recordRejected(rejection, keyId);
+        observation.lowCardinalityKeyValue("outcome", rejection.getTag()).stop();
+        if (closeConnectionOnRejection) {
+            // Don't let the container drain an unread body to keep the connection alive
+            response.setHeader("Connection", "close");
+        }
+        response.setStatus(rejection.getStatus());
+        // Write the precomputed body as bytes; a writer would be allocated and encode the message each time
+        response.setContentType(rejectionFormat.getContentType());
+        response.setContentLength(rejection.getContentLength(rejectionFormat));
+        rejection.writeBody(rejectionFormat, response.getOutputStream());
+    }
+
+    /**
+     * Puts the request in async mode and reads the body through a {@link ReadListener}.
+     * Once the body is complete and the signature checks out, the request is dispatched again
+     * with the verified body attached; otherwise the rejection is written and the request completed.
+     * The session and body buffer are owned by the async read from here on.
+     * <p>
+     * An offloaded body is only buffered while it is read; the offload pool then hashes it and
+     * finishes the request. Once a pool thread has taken the request over, a timeout or error leaves the
+     * session and body to it, so they are never released while they are still being hashed.
+     */
+    private void startAsyncVerification(HttpServletRequest request, VerificationSession session,
+                                        SpillingBodyBuffer body, long maxBodyBytes, String timestamp,
+                                        String hmacHeader, boolean checkReplay, boolean offload,
+                                        Observation observation) throws IOException {
+        long readStart = System.nanoTime();
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(asyncTimeout.toMillis());
+        AtomicBoolean released = new AtomicBoolean();
+        AtomicBoolean claimed = new AtomicBoolean();
+
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (!claimed.compareAndSet(false, true)) {
+                    return;
+                }
+                releaseAsync(session, body, released);
+                reject(request, (HttpServletResponse) event.getAsyncContext().getResponse(),
+                        HmacRejection.BODY_READ_TIMEOUT, session.keyId(), observation);
+                event.getAsyncContext().complete();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) throws IOException {
+                if (claimed.compareAndSet(false, true)) {
+                    releaseAsync(session, body, released);
+                }
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        ServletInputStream inputStream = request.getInputStream();
+        inputStream.setReadListener(new AsyncBodyReader(inputStream, offload ? null : session, body, maxBodyBytes,
+                READ_CHUNK_SIZE, new AsyncBodyReader.Completion() {
+                    @Override
+                    public void onBodyRead(boolean tooLarge) throws IOException {
+                        metrics.recordBodyRead(System.nanoTime() - readStart - session.macNanos());
+                        if (!offload || tooLarge) {
+                            verifyAndContinue(tooLarge);
+                            return;
+                        }
+                        try {
+                            macOffload.execute(this::hashAndContinue);
+                        } catch (RejectedExecutionException e) {
+                            releaseAsync(session, body, released);
+                            reject(request, (HttpServletResponse) asyncContext.getResponse(),
+                                    HmacRejection.VERIFICATION_OVERLOADED, session.keyId(), observation);
+                            asyncContext.complete();
+                        }
+                    }
+
+                    /**
+                     * Runs on the offload pool: hashes the buffered body, then verifies it.
+                     */
+                    private void hashAndContinue() {
+                        if (!claimed.compareAndSet(false, true)) {
+                            // Timed out or failed while waiting in the queue, already released
+                            return;
+                        }
+                        try {
+                            hashBody(session, body);
+                        } catch (IOException | RuntimeException e) {
+                            onReadError(e);
+                            return;
+                        }
+                        try {
+                            verifyAndContinue(false);
+                        } catch (IOException | IllegalStateException e) {
+                            // The client is gone or the container already ended the request, so nothing
+                            // replays the body; closing the buffer twice is harmless
+                            try {
+                                releaseAsync(session, body, released);
+                                body.close();
+                            } catch (IOException closeError) {
+                                e.addSuppressed(closeError);
+                            }
+                        }
+                    }
+
+                    private void verifyAndContinue(boolean tooLarge) throws IOException {
+                        HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+                        boolean verified = false;
+                        try {
+                            if (tooLarge) {
+                                reject(request, response, HmacRejection.BODY_TOO_LARGE, session.keyId(), observation);
+                            } else {
+                                verified = verifySignature(request, response, session, timestamp, hmacHeader,
+                                        checkReplay, observation);
+                            }
+                        } finally {
+                            if (!verified) {
+                                releaseAsync(session, body, released);
+                            } else if (released.compareAndSet(false, true)) {
+                                // The body stays open until the async dispatch has replayed it
+                                session.close();
+                            }
+                        }
+
+                        if (verified) {
+                            request.setAttribute(VERIFIED_BODY_ATTRIBUTE, body);
+                            asyncContext.dispatch();
+                        } else {
+                            asyncContext.complete();
+                        }
+                    }
+
+                    @Override
+                    public void onReadError(Throwable error) {
+                        try {
+                            releaseAsync(session, body, released);
+                            observation.error(error);
+                            reject(request, (HttpServletResponse) asyncContext.getResponse(),
+                                    HmacRejection.BODY_READ_ERROR, session.keyId(), observation);
+                        } catch (IOException e) {
+                            error.addSuppressed(e);
+                        } finally {
+                            asyncContext.complete();
+                        }
+                    }
+                }));
+    }
+
+    private void releaseAsync(VerificationSession session, SpillingBodyBuffer body, AtomicBoolean released)
+            throws IOException {
+        if (released.compareAndSet(false, true)) {
+            try {
+                session.close();
+            } finally {
+                body.close();
+            }
+        }
+    }
+
+    /**
+     * Handles the async dispatch issued after a body was verified with non-blocking I/O.
+     * Other async dispatches belong to requests that already passed this filter and go straight through.
+     */
+    private void continueAfterAsyncVerification(HttpServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        SpillingBodyBuffer body = (SpillingBodyBuffer) request.getAttribute(VERIFIED_BODY_ATTRIBUTE);
+        if (body == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        request.removeAttribute(VERIFIED_BODY_ATTRIBUTE);
+        try (body) {
+            chain.doFilter(new CachedBodyHttpServletRequest(request, body), response);
+        }
+    }
+
+    /**
+     * Reads the request body in chunks, feeding each chunk to the signature and the replay buffer.
+     *
+     * @param session The signature to feed, or null to only buffer the body
+     * @return false if the body exceeds the maximum size
+     */
+    private boolean readBody(HttpServletRequest request, VerificationSession session, SpillingBodyBuffer body,
+                             long maxBodyBytes) throws IOException {
+        InputStream inputStream = request.getInputStream();
+        byte[] chunk = new byte[READ_CHUNK_SIZE];
+        int read;
+        while ((read = inputStream.read(chunk)) != -1) {
+            if (body.size() + read > maxBodyBytes) {
                 return false;
             }
+            if (session != null) {
+                session.update(chunk, 0, read);
+            }
+            body.write(chunk, 0, read);
+        }
+        return true;
+    }
 
-            // Check if timestamp is not too old
-            return !requestTime.isBefore(now.minus(TIMESTAMP_VALIDITY_MINUTES, ChronoUnit.MINUTES));
-        } catch (NumberFormatException e) {
-            return false;
+    /**
+     * Feeds a body that was buffered without being hashed to the signature.
+     */
+    private static void hashBody(VerificationSession session, SpillingBodyBuffer body) throws IOException {
+        try (InputStream inputStream = body.openInputStream()) {
+            byte[] chunk = new byte[READ_CHUNK_SIZE];
+            int read;
+            while ((read = inputStream.read(chunk)) != -1) {
+                session.update(chunk, 0, read);
+            }
         }
     }
 
     /**
-     * A wrapper for HttpServletRequest that caches the request body so it can be read multiple times.
+     * Returns the query string to sign; the signer brings it into canonical form.
+     */
+    private String resolveQueryString(HttpServletRequest request) {
+        // Try to get query string first
+        String queryString = request.getQueryString();
+        if (queryString != null) {
+            return queryString;
+        }
+
+        // Form parameters belong to the body, which is signed as is; reading the parameter map
+        // would also make the container consume the body before it is verified
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.regionMatches(true, 0, FORM_CONTENT_TYPE, 0, FORM_CONTENT_TYPE.length())) {
+            return null;
+        }
+
+        // If query string is null (which happens in MockMvc tests), build it from parameters
+        Map<String, String[]> parameters = request.getParameterMap();
+        return parameters.isEmpty() ? null : CanonicalQuery.fromParameters(parameters);
+    }
+
+    private Path resolveSpillDirectory() {
+        return StringUtils.hasText(spillDirectory) ? Path.of(spillDirectory) : null;
+    }
+
+    /**
+     * A wrapper for HttpServletRequest that replays a body which has already been read and verified.
      * This is necessary because the request body can only be read once from the original request.
      */
     private static class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
-        private final byte[] cachedBody;
-        private final String cachedBodyString;
+        private final SpillingBodyBuffer cachedBody;
 
-        public CachedBodyHttpServletRequest(HttpServletRequest request) throws IOException {
+        public CachedBodyHttpServletRequest(HttpServletRequest request, SpillingBodyBuffer cachedBody) {
             super(request);
-            // Read the request body and cache it
-            InputStream requestInputStream = request.getInputStream();
-            this.cachedBody = StreamUtils.copyToByteArray(requestInputStream);
-            this.cachedBodyString = new String(cachedBody, StandardCharsets.UTF_8);
+            this.cachedBody = cachedBody;
         }
 
         @Override
-        public ServletInputStream getInputStream() {
-            return new CachedServletInputStream(cachedBody);
+        public ServletInputStream getInputStream() throws IOException {
+            return new CachedServletInputStream(cachedBody.openInputStream());
         }
 
         @Override
-        public BufferedReader getReader() {
+        public BufferedReader getReader() throws IOException {
             return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
         }
 
         /**
-         * Returns the cached request body as a string.
-         * 
-         * @return The request body as a string
-         */
-        public String getBody() {
-            return cachedBodyString;
-        }
-
-        /**
-         * A ServletInputStream implementation that reads from a cached byte array.
+         * A ServletInputStream implementation that reads from the buffered body.
          */
         private static class CachedServletInputStream extends ServletInputStream {
-            private final ByteArrayInputStream inputStream;
+            private final InputStream inputStream;
+            private boolean finished;
 
-            public CachedServletInputStream(byte[] cachedBody) {
-                this.inputStream = new ByteArrayInputStream(cachedBody);
+            public CachedServletInputStream(InputStream inputStream) {
+                this.inputStream = inputStream;
             }
 
             @Override
-            public int read() {
-                return inputStream.read();
+            public int read() throws IOException {
+                int value = inputStream.read();
+                finished = value == -1;
+                return value;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = inputStream.read(buffer, offset, length);
+                finished = read == -1;
+                return read;
+            }
+
+            @Override
+            public void close() throws IOException {
+                inputStream.close();
             }
 
             @Override
             public boolean isFinished() {
-                return inputStream.available() == 0;
+                return finished;
             }
 
             @Override
@@ -197,9 +861,20 @@ public class HmacFilter implements Filter {
                 return true;
             }
 
+            /**
+             * The body is already buffered, so it is always ready: the listener is told data is available
+             * right away, and that all data was read once it has consumed the stream to the end.
+             */
             @Override
             public void setReadListener(ReadListener readListener) {
-                throw new UnsupportedOperationException("setReadListener is not supported");
+                try {
+                    readListener.onDataAvailable();
+                    if (finished) {
+                        readListener.onAllDataRead();
+                    }
+                } catch (IOException e) {
+                    readListener.onError(e);
+                }
             }
         }
     }
@@ -0,0 +1,116 @@
+package me.dhan.hmacdemo.security;
+
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Request headers of the HMAC scheme and the checks that need nothing but those headers.
+ * <p>
+ * Shared by the servlet {@link HmacFilter} and the reactive filter, so both stacks accept exactly
+ * the same requests. None of the checks decodes or allocates; they run before any body is read.
+ */
+public final class HmacHeaders {
+
+    public static final String SIGNATURE = "X-HMAC-SIGNATURE";
+    public static final String TIMESTAMP = "X-TIMESTAMP";
+    public static final String KEY_ID = "X-KEY-ID";
+    public static final String VERSION = "X-HMAC-VERSION";
+    public static final String ALGORITHM = "X-HMAC-ALGORITHM";
+    public static final String BODY_DIGEST = "X-CONTENT-SHA256";
+
+    /** Version of the scheme that signs the body digest instead of the body. */
+    public static final String BODY_DIGEST_VERSION = "2";
+
+    /** How old a request timestamp may be. */
+    public static final Duration TIMESTAMP_VALIDITY = Duration.ofMinutes(5);
+
+    /** How far a request timestamp may be ahead of the server clock. */
+    public static final Duration TIMESTAMP_FUTURE_TOLERANCE = Duration.ofMinutes(1);
+
+    /** Span of request timestamps the filters accept, which replay protection has to cover. */
+    public static final Duration REPLAY_WINDOW = TIMESTAMP_VALIDITY.plus(TIMESTAMP_FUTURE_TOLERANCE);
+
+    private static final String SIGNED_BODY_VERSION = "1";
+    private static final int BODY_DIGEST_LENGTH = 32;
+
+    private HmacHeaders() {
+    }
+
+    /**
+     * Returns whether the version header names a supported scheme; requests without it use version 1.
+     */
+    public static boolean isSupportedVersion(String version) {
+        return !StringUtils.hasText(version) || SIGNED_BODY_VERSION.equals(version) || BODY_DIGEST_VERSION.equals(version);
+    }
+
+    /**
+     * Returns whether the version header selects the body-digest scheme.
+     */
+    public static boolean isDigestScheme(String version) {
+        return BODY_DIGEST_VERSION.equals(version);
+    }
+
+    /**
+     * Resolves the algorithm header.
+     *
+     * @return The named algorithm, {@link MacAlgorithm#DEFAULT} without a header, or null if the name is unknown
+     */
+    public static MacAlgorithm resolveAlgorithm(String algorithm) {
+        return StringUtils.hasText(algorithm) ? MacAlgorithm.fromHeader(algorithm) : MacAlgorithm.DEFAULT;
+    }
+
+    /**
+     * Validates if the provided timestamp is within the allowed time window.
+     *
+     * @param timestamp The timestamp to validate (milliseconds since epoch)
+     * @return true if the timestamp is valid, false otherwise
+     */
+    public static boolean isValidTimestamp(String timestamp) {
+        try {
+            long timestampValue = Long.parseLong(timestamp);
+            Instant requestTime = Instant.ofEpochMilli(timestampValue);
+            Instant now = Instant.now();
+
+            // Check if timestamp is not in the future (with a small tolerance)
+            if (requestTime.isAfter(now.plus(TIMESTAMP_FUTURE_TOLERANCE))) {
+                return false;
+            }
+
+            // Check if timestamp is not too old
+            return !requestTime.isBefore(now.minus(TIMESTAMP_VALIDITY));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks that a body digest header is the padded Base64 encoding of a SHA-256 digest.
+     */
+    public static boolean isWellFormedBodyDigest(String bodyDigest) {
+        return isWellFormedSignature(bodyDigest, BODY_DIGEST_LENGTH);
+    }
+
+    /**
+     * Checks that a signature header is the padded Base64 encoding of a MAC of the expected length,
+     * without decoding it.
+     */
+    public static boolean isWellFormedSignature(String signature, int macLength) {
+        int padding = (3 - macLength % 3) % 3;
+        int length = signature.length();
+        if (length != 4 * ((macLength + 2) / 3)) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = signature.charAt(i);
+            boolean valid = i >= length - padding
+                    ? c == '='
+                    : (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '+' || c == '/';
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,171 @@
+package me.dhan.hmacdemo.security;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the signers resolved from an {@link HmacKeyProvider}, so verifying a request never
+ * reaches the backing store on a cache hit.
+ * <p>
+ * Each entry holds ready-to-use {@link HmacSigner signers} for the client's current and, during a
+ * rotation, previous secret, once for every {@link MacAlgorithm} the client may sign with. Entries
+ * expire after a fixed time to live, which bounds how long a rotated or revoked key stays usable.
+ * The number of entries is bounded; when the cache is full, the entry loaded longest ago is dropped.
+ * <p>
+ * Unknown key ids are remembered in a separate, small set, so repeating a made-up key id does not
+ * reach the provider again, while a flood of distinct ones can never push real clients out.
+ */
+public class HmacKeyCache {
+
+    private static final Entry UNKNOWN = new Entry(Map.of(), null, 0);
+    private static final int MAX_UNKNOWN_KEY_IDS = 1024;
+
+    private final HmacKeyProvider provider;
+    private final long timeToLiveNanos;
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Key ids of the cached entries, loaded longest ago first; guarded by itself
+    private final Set<String> loadOrder = new LinkedHashSet<>();
+    // Unknown key ids and when they were looked up, oldest first; guarded by itself
+    private final Map<String, Long> unknownKeyIds = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_UNKNOWN_KEY_IDS;
+        }
+    };
+
+    /**
+     * @param provider   The backing key store
+     * @param timeToLive How long resolved keys are reused before the provider is asked again
+     * @param maxEntries Maximum number of cached key ids
+     */
+    public HmacKeyCache(HmacKeyProvider provider, Duration timeToLive, int maxEntries) {
+        this.provider = provider;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the signers for the given key id and the client's preferred algorithm.
+     *
+     * @param keyId The key id sent by the client
+     * @return The client's signers, or null if the key id is unknown
+     */
+    public ResolvedKeys resolve(String keyId) {
+        return entry(keyId).preferred;
+    }
+
+    /**
+     * Returns the signers for the given key id and algorithm.
+     *
+     * @param keyId     The key id sent by the client
+     * @param algorithm The algorithm the request is signed with
+     * @return The client's signers, or null if the key id is unknown or the client may not use the algorithm
+     */
+    public ResolvedKeys resolve(String keyId, MacAlgorithm algorithm) {
+        return entry(keyId).keys.get(algorithm);
+    }
+
+    private Entry entry(String keyId) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(keyId);
+        if (entry != null && now - entry.loadedAt < timeToLiveNanos) {
+            return entry;
+        }
+        if (entry == null && isKnownUnknown(keyId, now)) {
+            return UNKNOWN;
+        }
+
+        entry = load(keyId, now);
+        if (entry == null) {
+            synchronized (loadOrder) {
+                // The key may have been revoked since it was cached
+                entries.remove(keyId);
+                loadOrder.remove(keyId);
+            }
+            synchronized (unknownKeyIds) {
+                unknownKeyIds.put(keyId, now);
+            }
+            return UNKNOWN;
+        }
+        synchronized (loadOrder) {
+            entries.put(keyId, entry);
+            loadOrder.remove(keyId);
+            loadOrder.add(keyId);
+            Iterator<String> oldest = loadOrder.iterator();
+            while (loadOrder.size() > maxEntries) {
+                entries.remove(oldest.next());
+                oldest.remove();
+            }
+        }
+        return entry;
+    }
+
+    private boolean isKnownUnknown(String keyId, long now) {
+        synchronized (unknownKeyIds) {
+            Long lookedUpAt = unknownKeyIds.get(keyId);
+            return lookedUpAt != null && now - lookedUpAt < timeToLiveNanos;
+        }
+    }
+
+    /**
+     * Drops the cached keys for the given key id, e.g. right after a rotation.
+     */
+    public void invalidate(String keyId) {
+        synchronized (loadOrder) {
+            entries.remove(keyId);
+            loadOrder.remove(keyId);
+        }
+        synchronized (unknownKeyIds) {
+            unknownKeyIds.remove(keyId);
+        }
+    }
+
+    /**
+     * Loads the signers of a client, or returns null if the key id is unknown.
+     */
+    private Entry load(String keyId, long now) {
+        HmacKeys keys = provider.findKeys(keyId).orElse(null);
+        if (keys == null) {
+            return null;
+        }
+        List<MacAlgorithm> algorithms = keys.algorithms();
+        Map<MacAlgorithm, ResolvedKeys> resolved = new EnumMap<>(MacAlgorithm.class);
+        for (MacAlgorithm algorithm : algorithms) {
+            resolved.put(algorithm, new ResolvedKeys(keys.keyId(), new HmacSigner(keys.currentSecret(), algorithm),
+                    keys.previousSecret() != null ? new HmacSigner(keys.previousSecret(), algorithm) : null));
+        }
+        return new Entry(resolved, resolved.get(algorithms.get(0)), now);
+    }
+
+    /**
+     * The signers of one client.
+     *
+     * @param keyId    The client's key id
+     * @param current  Signer for the active secret
+     * @param previous Signer for the secret being rotated out, or null
+     */
+    public record ResolvedKeys(String keyId, HmacSigner current, HmacSigner previous) {
+
+        /**
+         * Returns the algorithm of both signers.
+         */
+        public MacAlgorithm algorithm() {
+            return current.algorithm();
+        }
+    }
+
+    /**
+     * @param keys      The client's signers by algorithm, empty for an unknown key id
+     * @param preferred The signers for the client's preferred algorithm, null for an unknown key id
+     */
+    private record Entry(Map<MacAlgorithm, ResolvedKeys> keys, ResolvedKeys preferred, long loadedAt) {
+    }
+}
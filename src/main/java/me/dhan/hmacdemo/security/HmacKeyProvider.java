@@ -0,0 +1,20 @@
+package me.dhan.hmacdemo.security;
+
+import java.util.Optional;
+
+/**
+ * Looks up the secrets of an API client by key id.
+ * <p>
+ * Implementations may be slow (a file, a database, a secrets manager); the filter only reaches
+ * them through {@link HmacKeyCache}, which caches the resolved keys.
+ */
+public interface HmacKeyProvider {
+
+    /**
+     * Returns the secrets registered for the given key id.
+     *
+     * @param keyId The key id sent by the client
+     * @return The client's keys, or empty if the key id is unknown
+     */
+    Optional<HmacKeys> findKeys(String keyId);
+}
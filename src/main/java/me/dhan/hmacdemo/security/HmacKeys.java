@@ -0,0 +1,32 @@
+package me.dhan.hmacdemo.security;
+
+import java.util.List;
+
+/**
+ * The secrets registered for one API client.
+ * <p>
+ * During a key rotation the client may sign with either the new or the old secret, so both are
+ * accepted until the previous secret is retired.
+ *
+ * @param keyId          Identifier sent by the client in the key-id header
+ * @param currentSecret  The active secret
+ * @param previousSecret The secret being rotated out, or null outside a rotation window
+ * @param algorithms     The MAC algorithms the client may sign with, the preferred one first;
+ *                       only {@link MacAlgorithm#DEFAULT} when null or empty
+ */
+public record HmacKeys(String keyId, String currentSecret, String previousSecret, List<MacAlgorithm> algorithms) {
+
+    public HmacKeys {
+        algorithms = algorithms == null || algorithms.isEmpty()
+                ? List.of(MacAlgorithm.DEFAULT)
+                : List.copyOf(algorithms);
+    }
+
+    public HmacKeys(String keyId, String currentSecret, String previousSecret) {
+        this(keyId, currentSecret, previousSecret, null);
+    }
+
+    public HmacKeys(String keyId, String currentSecret) {
+        this(keyId, currentSecret, null);
+    }
+}
@@ -0,0 +1,193 @@
+package me.dhan.hmacdemo.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer instrumentation for {@link HmacFilter}.
+ * <p>
+ * All meters except the per-key-id counters are registered up front, and the per-key-id counters
+ * are created once per key id, so recording on the success path is a map lookup and a few
+ * primitive updates. The number of key-id tag values is capped to keep metric cardinality bounded.
+ * <p>
+ * Meters:
+ * <ul>
+ *     <li>{@code hmac.canonicalization}: writing method, URI and query into the signature</li>
+ *     <li>{@code hmac.body.read}: reading and buffering the body, hashing excluded</li>
+ *     <li>{@code hmac.mac}: MAC computation over the body plus finalization and comparison, by {@code algorithm}</li>
+ *     <li>{@code hmac.rejections}: rejected requests by {@code reason}</li>
+ *     <li>{@code hmac.verifications}: verified requests by {@code key.id} and {@code outcome}</li>
+ *     <li>{@code hmac.verification.cache}: verification cache lookups by {@code result}</li>
+ *     <li>{@code hmac.replay.store.errors}: replay checks the shared replay store failed to answer in time</li>
+ *     <li>{@code hmac.offload.queue}, {@code hmac.offload.active}: large bodies waiting for and being hashed on
+ *     the MAC offload pool, when it is enabled; shed bodies count as {@code verification-overloaded} rejections</li>
+ * </ul>
+ */
+public class HmacMetrics {
+
+    private static final String OTHER_KEY_ID = "other";
+    private static final String UNKNOWN_KEY_ID = "unknown";
+
+    private final MeterRegistry registry;
+    private final ObservationRegistry observationRegistry;
+    private final int maxKeyIdTags;
+    private final Timer canonicalizationTimer;
+    private final Timer bodyReadTimer;
+    private final Timer[] macTimers;
+    private final Counter[] rejectionCounters;
+    private final Map<String, Counter[]> keyIdCounters = new ConcurrentHashMap<>();
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter replayStoreErrors;
+
+    /**
+     * @param registry            Registry for timers and counters
+     * @param observationRegistry Registry for tracing observations, or {@link ObservationRegistry#NOOP}
+     * @param maxKeyIdTags        Maximum number of distinct key ids used as tag values
+     */
+    public HmacMetrics(MeterRegistry registry, ObservationRegistry observationRegistry, int maxKeyIdTags) {
+        this.registry = registry;
+        this.observationRegistry = observationRegistry;
+        this.maxKeyIdTags = maxKeyIdTags;
+        this.canonicalizationTimer = timer("hmac.canonicalization", "Time spent writing method, URI and query into the signature");
+        this.bodyReadTimer = timer("hmac.body.read", "Time spent reading and buffering the request body");
+        MacAlgorithm[] algorithms = MacAlgorithm.values();
+        this.macTimers = new Timer[algorithms.length];
+        for (MacAlgorithm algorithm : algorithms) {
+            macTimers[algorithm.ordinal()] = Timer.builder("hmac.mac")
+                    .description("Time spent computing and comparing the MAC")
+                    .tag("algorithm", algorithm.getHeaderValue())
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+        HmacRejection[] rejections = HmacRejection.values();
+        this.rejectionCounters = new Counter[rejections.length];
+        for (HmacRejection rejection : rejections) {
+            rejectionCounters[rejection.ordinal()] = Counter.builder("hmac.rejections")
+                    .description("Requests rejected by the HMAC filter")
+                    .tag("reason", rejection.getTag())
+                    .register(registry);
+        }
+        this.cacheHits = cacheCounter("hit");
+        this.cacheMisses = cacheCounter("miss");
+        this.replayStoreErrors = Counter.builder("hmac.replay.store.errors")
+                .description("Replay checks the shared replay store failed to answer in time")
+                .register(registry);
+    }
+
+    /**
+     * Creates metrics that are recorded nowhere, for filters built outside a Spring context.
+     */
+    public static HmacMetrics noop() {
+        return new HmacMetrics(new SimpleMeterRegistry(), ObservationRegistry.NOOP, 0);
+    }
+
+    /**
+     * Starts the tracing observation around one request verification.
+     * Returns a no-op observation when tracing is not enabled.
+     */
+    public Observation startVerification(String method) {
+        return Observation.createNotStarted("hmac.verification", observationRegistry)
+                .lowCardinalityKeyValue("http.method", method)
+                .start();
+    }
+
+    public void recordCanonicalization(long nanos) {
+        canonicalizationTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordBodyRead(long nanos) {
+        bodyReadTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordMac(MacAlgorithm algorithm, long nanos) {
+        macTimers[algorithm.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a lookup in the verification cache.
+     */
+    public void recordCacheLookup(boolean hit) {
+        (hit ? cacheHits : cacheMisses).increment();
+    }
+
+    /**
+     * Counts a replay check that failed or timed out in the shared replay store.
+     */
+    public void recordReplayStoreError() {
+        replayStoreErrors.increment();
+    }
+
+    /**
+     * Registers the gauges of the pool that hashes large bodies.
+     */
+    void bindOffload(MacOffload offload) {
+        Gauge.builder("hmac.offload.queue", offload, MacOffload::queueDepth)
+                .description("Request bodies waiting for a MAC offload thread")
+                .register(registry);
+        Gauge.builder("hmac.offload.active", offload, MacOffload::activeCount)
+                .description("Request bodies being hashed on the MAC offload pool")
+                .register(registry);
+    }
+
+    /**
+     * Counts a request whose signature was accepted.
+     */
+    public void recordAccepted(String keyId) {
+        keyIdCounters(keyId)[0].increment();
+    }
+
+    /**
+     * Counts a rejected request.
+     *
+     * @param rejection The reason for the rejection
+     * @param keyId     The resolved key id, or null if rejected before the key was resolved
+     */
+    public void recordRejected(HmacRejection rejection, String keyId) {
+        rejectionCounters[rejection.ordinal()].increment();
+        keyIdCounters(keyId != null ? keyId : UNKNOWN_KEY_ID)[1].increment();
+    }
+
+    private Counter[] keyIdCounters(String keyId) {
+        Counter[] counters = keyIdCounters.get(keyId);
+        if (counters != null) {
+            return counters;
+        }
+        String tagValue = keyIdCounters.size() < maxKeyIdTags ? keyId : OTHER_KEY_ID;
+        return keyIdCounters.computeIfAbsent(tagValue, id -> new Counter[]{
+                verificationCounter(id, "accepted"),
+                verificationCounter(id, "rejected")
+        });
+    }
+
+    private Counter verificationCounter(String keyId, String outcome) {
+        return Counter.builder("hmac.verifications")
+                .description("Requests verified by the HMAC filter")
+                .tag("key.id", keyId)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private Counter cacheCounter(String result) {
+        return Counter.builder("hmac.verification.cache")
+                .description("Lookups in the verification cache")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private Timer timer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,104 @@
+package me.dhan.hmacdemo.security;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Reasons for which {@link HmacFilter} rejects a request, with the status and message sent back.
+ * <p>
+ * The response body of each reason is encoded once per {@link RejectionFormat} when the class is
+ * loaded, so rejecting a request writes a constant byte array and allocates nothing for the body.
+ */
+public enum HmacRejection {
+
+    UNSUPPORTED_VERSION(HttpServletResponse.SC_BAD_REQUEST, "Unsupported HMAC version"),
+    UNSUPPORTED_ALGORITHM(HttpServletResponse.SC_BAD_REQUEST, "Unsupported HMAC algorithm"),
+    BODY_DIGEST_REQUIRED(HttpServletResponse.SC_BAD_REQUEST, "Body digest signing required for this route"),
+    MISSING_TIMESTAMP(HttpServletResponse.SC_UNAUTHORIZED, "Missing timestamp header"),
+    INVALID_TIMESTAMP(HttpServletResponse.SC_UNAUTHORIZED, "Expired or invalid timestamp"),
+    MISSING_SIGNATURE(HttpServletResponse.SC_UNAUTHORIZED, "Missing HMAC signature header"),
+    MALFORMED_SIGNATURE(HttpServletResponse.SC_UNAUTHORIZED, "Malformed HMAC signature"),
+    INVALID_SIGNATURE(HttpServletResponse.SC_UNAUTHORIZED, "Invalid HMAC signature"),
+    MISSING_BODY_DIGEST(HttpServletResponse.SC_UNAUTHORIZED, "Missing body digest header"),
+    MALFORMED_BODY_DIGEST(HttpServletResponse.SC_UNAUTHORIZED, "Malformed body digest"),
+    BODY_DIGEST_MISMATCH(HttpServletResponse.SC_UNAUTHORIZED, "Body does not match digest"),
+    UNKNOWN_KEY_ID(HttpServletResponse.SC_UNAUTHORIZED, "Unknown key id"),
+    ALGORITHM_NOT_ALLOWED(HttpServletResponse.SC_UNAUTHORIZED, "HMAC algorithm not allowed for this key"),
+    REPLAYED(HttpServletResponse.SC_UNAUTHORIZED, "Replayed request"),
+    REPLAY_CHECK_UNAVAILABLE(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Replay protection unavailable"),
+    VERIFICATION_OVERLOADED(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many request bodies waiting for verification"),
+    BODY_TOO_LARGE(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Request body too large"),
+    BODY_READ_TIMEOUT(HttpServletResponse.SC_REQUEST_TIMEOUT, "Request body read timed out"),
+    BODY_READ_ERROR(HttpServletResponse.SC_BAD_REQUEST, "Request body could not be read"),
+    RATE_LIMITED(HttpServletResponse.SC_TOO_MANY_REQUESTS, "Too many requests"),
+    TOO_MANY_FAILURES(HttpServletResponse.SC_TOO_MANY_REQUESTS, "Too many failed verifications");
+
+    private final int status;
+    private final String message;
+    private final String tag;
+    private final byte[] textBody;
+    private final byte[] jsonBody;
+
+    HmacRejection(int status, String message) {
+        this.status = status;
+        this.message = message;
+        this.tag = name().toLowerCase(Locale.ROOT).replace('_', '-');
+        this.textBody = message.getBytes(StandardCharsets.UTF_8);
+        // The tag and message are constants without characters that need escaping in JSON
+        this.jsonBody = ("{\"status\":" + status + ",\"error\":\"" + tag + "\",\"message\":\"" + message + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns whether the request failed authentication, as opposed to being refused for another reason.
+     */
+    public boolean isVerificationFailure() {
+        return status == HttpServletResponse.SC_UNAUTHORIZED;
+    }
+
+    /**
+     * Returns the value used for this reason in metric tags and as the error code of JSON responses,
+     * e.g. {@code invalid-signature}.
+     */
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * Returns the length in bytes of the response body in the given format.
+     */
+    public int getContentLength(RejectionFormat format) {
+        return body(format).length;
+    }
+
+    /**
+     * Writes the response body in the given format.
+     */
+    public void writeBody(RejectionFormat format, OutputStream out) throws IOException {
+        out.write(body(format));
+    }
+
+    /**
+     * Returns the response body in the given format as a read-only buffer over the shared bytes.
+     */
+    public ByteBuffer getBody(RejectionFormat format) {
+        return ByteBuffer.wrap(body(format)).asReadOnlyBuffer();
+    }
+
+    private byte[] body(RejectionFormat format) {
+        return format == RejectionFormat.JSON ? jsonBody : textBody;
+    }
+}
@@ -0,0 +1,383 @@
+package me.dhan.hmacdemo.security;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Computes HMAC signatures with a fixed secret key and {@link MacAlgorithm algorithm}.
+ * <p>
+ * The key material is scheduled once and kept in an initialized prototype {@link Mac}.
+ * Callers borrow ready-to-use {@link Session sessions} from a bounded pool; the underlying
+ * {@link Mac} is {@link Mac#reset() reset} before a session goes back, so no provider lookup or
+ * key initialization happens on the hot path. Instances are thread-safe and meant to be shared.
+ * <p>
+ * A session feeds the canonical message straight into the {@link Mac}, segment by segment:
+ * <pre>
+ * METHOD\n
+ * URI\n
+ * QUERY\n     (in {@link CanonicalQuery canonical form})
+ * BODY\n      (only when the body is not empty)
+ * TIMESTAMP   (only when present)
+ * </pre>
+ * The bytes are identical to the UTF-8 encoding of the string built by the original
+ * {@code StringBuilder} implementation, so existing clients keep working as long as their
+ * query strings are already canonical, e.g. {@code a=5&b=3}.
+ * <p>
+ * The body-digest scheme ({@link #beginDigest}) signs the Base64 body digest in place of the body and
+ * starts the message with an extra {@code HMAC-V2/SHA-256} line. That line is not a valid HTTP method,
+ * so a version 2 signature never matches a version 1 request whose body is the digest string.
+ */
+public final class HmacSigner {
+
+    private static final byte NEWLINE = '\n';
+    private static final byte[] DIGEST_SCHEME_MARKER = "HMAC-V2/SHA-256\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int SCRATCH_SIZE = 512;
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final MacAlgorithm algorithm;
+    private final SecretKeySpec keySpec;
+    private final Mac prototype;
+    private final BlockingQueue<Session> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    /**
+     * Creates a signer for the given secret key with the {@link MacAlgorithm#DEFAULT default algorithm}.
+     *
+     * @param secretKey The secret key used for signing
+     * @throws RuntimeException if the HMAC algorithm is not available or the key is rejected
+     */
+    public HmacSigner(String secretKey) {
+        this(secretKey, MacAlgorithm.DEFAULT);
+    }
+
+    /**
+     * Creates a signer for the given secret key and algorithm.
+     *
+     * @param secretKey The secret key used for signing
+     * @param algorithm The MAC algorithm
+     * @throws RuntimeException if the HMAC algorithm is not available or the key is rejected
+     */
+    public HmacSigner(String secretKey, MacAlgorithm algorithm) {
+        this.algorithm = algorithm;
+        this.keySpec = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), algorithm.getJcaName());
+        this.prototype = newMac();
+    }
+
+    /**
+     * Computes the HMAC of the given data.
+     *
+     * @param data The bytes to sign
+     * @return The raw HMAC bytes
+     */
+    public byte[] sign(byte[] data) {
+        try (Session session = acquire()) {
+            return session.mac.doFinal(data);
+        }
+    }
+
+    /**
+     * Computes the HMAC signature of a request whose body is already available as bytes.
+     *
+     * @param method      HTTP method (GET, POST, etc.)
+     * @param uri         Request URI (e.g., /api/demo/sum)
+     * @param queryString Query string (e.g., a=5&b=3), may be null
+     * @param timestamp   Request timestamp in milliseconds since epoch, may be null
+     * @param body        Request body bytes, may be null
+     * @return The raw HMAC bytes
+     */
+    public byte[] sign(String method, String uri, String queryString, String timestamp, byte[] body) {
+        try (Session session = begin(method, uri, queryString)) {
+            if (body != null) {
+                session.update(body, 0, body.length);
+            }
+            return session.finish(timestamp);
+        }
+    }
+
+    /**
+     * Starts signing a request. The method, URI and query string are written immediately; the body
+     * can then be streamed through {@link Session#update} before {@link Session#finish} completes
+     * the message with the timestamp. The session must be closed to return it to the pool.
+     *
+     * @param method      HTTP method (GET, POST, etc.)
+     * @param uri         Request URI (e.g., /api/demo/sum)
+     * @param queryString Query string (e.g., a=5&b=3), may be null; it is signed in canonical form
+     * @return A session positioned at the start of the request body
+     */
+    public Session begin(String method, String uri, String queryString) {
+        Session session = acquire();
+        writeEnvelope(session, method, uri, queryString);
+        return session;
+    }
+
+    /**
+     * Computes the signature of a request sent with the body-digest scheme.
+     *
+     * @param method      HTTP method (GET, POST, etc.)
+     * @param uri         Request URI (e.g., /api/demo/sum)
+     * @param queryString Query string (e.g., a=5&b=3), may be null
+     * @param timestamp   Request timestamp in milliseconds since epoch, may be null
+     * @param bodyDigest  Base64 SHA-256 digest of the body, as sent in the body digest header
+     * @return The raw HMAC bytes
+     */
+    public byte[] signDigest(String method, String uri, String queryString, String timestamp, String bodyDigest) {
+        try (Session session = beginDigest(method, uri, queryString, bodyDigest)) {
+            return session.finish(timestamp);
+        }
+    }
+
+    /**
+     * Starts signing a request sent with the body-digest scheme. The scheme marker, method, URI,
+     * query string and body digest are written immediately, so the session only needs
+     * {@link Session#finish} with the timestamp.
+     *
+     * @param method      HTTP method (GET, POST, etc.)
+     * @param uri         Request URI (e.g., /api/demo/sum)
+     * @param queryString Query string (e.g., a=5&b=3), may be null; it is signed in canonical form
+     * @param bodyDigest  Base64 SHA-256 digest of the body, as sent in the body digest header
+     * @return A session positioned before the timestamp
+     */
+    public Session beginDigest(String method, String uri, String queryString, String bodyDigest) {
+        Session session = acquire();
+        session.mac.update(DIGEST_SCHEME_MARKER);
+        writeEnvelope(session, method, uri, queryString);
+        return session.update(bodyDigest);
+    }
+
+    private static void writeEnvelope(Session session, String method, String uri, String queryString) {
+        session.writeString(method);
+        session.mac.update(NEWLINE);
+        session.writeString(uri);
+        session.mac.update(NEWLINE);
+        if (queryString != null) {
+            session.writeString(CanonicalQuery.canonicalize(queryString));
+        }
+        session.mac.update(NEWLINE);
+    }
+
+    /**
+     * Returns the algorithm of the signatures produced by this signer.
+     */
+    public MacAlgorithm algorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the length of the signatures produced by this signer, in bytes.
+     */
+    public int macLength() {
+        return prototype.getMacLength();
+    }
+
+    private Session acquire() {
+        Session session = pool.poll();
+        if (session == null) {
+            session = new Session(copyPrototype());
+        }
+        session.open = true;
+        return session;
+    }
+
+    private Mac copyPrototype() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            // Provider does not support cloning, fall back to a fresh instance
+            return newMac();
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(algorithm.getJcaName());
+            mac.init(keySpec);
+            return mac;
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new RuntimeException("Error initializing HMAC signer", e);
+        }
+    }
+
+    /**
+     * An in-progress signature over one canonical request message.
+     * Sessions are pooled and reused; they must not be used after {@link #close()}.
+     */
+    public final class Session implements AutoCloseable {
+        private final Mac mac;
+        private final byte[] scratch = new byte[SCRATCH_SIZE];
+        private final byte[] signature;
+        private final byte[] computed;
+        private boolean hasBody;
+        private boolean open;
+
+        private Session(Mac mac) {
+            this.mac = mac;
+            this.signature = new byte[mac.getMacLength()];
+            this.computed = new byte[mac.getMacLength()];
+        }
+
+        /**
+         * Feeds a chunk of the request body into the signature.
+         */
+        public Session update(byte[] body, int offset, int length) {
+            if (length > 0) {
+                hasBody = true;
+                mac.update(body, offset, length);
+            }
+            return this;
+        }
+
+        /**
+         * Feeds a chunk of the request body into the signature, consuming the buffer's remaining bytes.
+         */
+        public Session update(ByteBuffer body) {
+            if (body.hasRemaining()) {
+                hasBody = true;
+                mac.update(body);
+            }
+            return this;
+        }
+
+        /**
+         * Feeds a request body given as text; it is signed as its UTF-8 encoding.
+         */
+        public Session update(String body) {
+            if (body != null && !body.isEmpty()) {
+                hasBody = true;
+                writeString(body);
+            }
+            return this;
+        }
+
+        /**
+         * Completes the message with the timestamp and returns the signature.
+         * The session is reset and can be closed afterwards.
+         *
+         * @param timestamp Request timestamp in milliseconds since epoch, may be null
+         * @return The raw HMAC bytes
+         */
+        public byte[] finish(String timestamp) {
+            writeTimestamp(timestamp);
+            return mac.doFinal();
+        }
+
+        /**
+         * Completes the message with the timestamp and writes the signature into the given buffer.
+         * The session is reset and can be closed afterwards.
+         *
+         * @param timestamp Request timestamp in milliseconds since epoch, may be null
+         * @param output    Buffer receiving the raw HMAC bytes
+         * @param offset    Position in the buffer where the signature starts
+         * @return The number of bytes written, i.e. {@link HmacSigner#macLength()}
+         * @throws IllegalArgumentException if the signature does not fit into the buffer
+         */
+        public int finish(String timestamp, byte[] output, int offset) {
+            writeTimestamp(timestamp);
+            try {
+                mac.doFinal(output, offset);
+            } catch (ShortBufferException e) {
+                throw new IllegalArgumentException("Output buffer too small for the signature", e);
+            }
+            return mac.getMacLength();
+        }
+
+        /**
+         * Completes the message and compares the signature in constant time with an expected one.
+         * The signature is computed into a buffer owned by the session, available through
+         * {@link #computed()}.
+         *
+         * @param timestamp Request timestamp in milliseconds since epoch, may be null
+         * @param expected  The raw signature sent by the client
+         * @return true if the signatures are equal
+         */
+        boolean finishAndVerify(String timestamp, byte[] expected) {
+            finish(timestamp, computed, 0);
+            return MessageDigest.isEqual(computed, expected);
+        }
+
+        /**
+         * Returns the buffer holding the signature computed by {@link #finishAndVerify}.
+         * Its content is only valid until the session is closed.
+         */
+        byte[] computed() {
+            return computed;
+        }
+
+        /**
+         * Returns a buffer of {@link HmacSigner#macLength()} bytes owned by the session, for decoding
+         * the signature sent by the client without allocating. Only valid until the session is closed.
+         */
+        byte[] signatureBuffer() {
+            return signature;
+        }
+
+        @Override
+        public void close() {
+            if (!open) {
+                // Already returned to the pool
+                return;
+            }
+            open = false;
+            hasBody = false;
+            mac.reset();
+            pool.offer(this);
+        }
+
+        private void writeTimestamp(String timestamp) {
+            if (hasBody) {
+                mac.update(NEWLINE);
+            }
+            if (timestamp != null) {
+                writeString(timestamp);
+            }
+            hasBody = false;
+        }
+
+        /**
+         * Writes the UTF-8 encoding of the given string through the scratch buffer,
+         * matching {@link String#getBytes(java.nio.charset.Charset)} byte for byte.
+         */
+        private void writeString(String value) {
+            byte[] buffer = scratch;
+            int limit = buffer.length - 4;
+            int position = 0;
+            int length = value.length();
+            for (int i = 0; i < length; i++) {
+                if (position > limit) {
+                    mac.update(buffer, 0, position);
+                    position = 0;
+                }
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    buffer[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xC0 | (c >> 6));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    // Unpaired surrogate, replaced the same way String.getBytes does
+                    buffer[position++] = '?';
+                } else {
+                    buffer[position++] = (byte) (0xE0 | (c >> 12));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            if (position > 0) {
+                mac.update(buffer, 0, position);
+            }
+        }
+    }
+}
@@ -1,19 +1,32 @@
 package me.dhan.hmacdemo.security;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Utility class for generating HMAC signatures for API requests.
  * This class can be used by API clients to generate valid signatures.
+ * It is a thin facade over {@link HmacSigner} that keeps the signers of the most recently used secrets,
+ * so signing in a loop does not schedule the key on every call. The cache is keyed by a SHA-256 digest
+ * of the secret, never the secret itself, and holds at most {@value #MAX_CACHED_SIGNERS} signers, so a
+ * rotated-out secret is dropped once enough others have been used. Callers that sign many requests with
+ * the same secret should still keep an {@link HmacSigner}, as {@code HmacApiClient} does.
  */
 public class HmacUtils {
 
-    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    static final int MAX_CACHED_SIGNERS = 64;
+
+    // Least recently used first; guarded by itself
+    private static final Map<SignerKey, HmacSigner> SIGNERS = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SignerKey, HmacSigner> eldest) {
+            return size() > MAX_CACHED_SIGNERS;
+        }
+    };
 
     /**
      * Generates an HMAC signature for an API request.
@@ -58,34 +71,101 @@ public class HmacUtils {
      * @throws RuntimeException if there's an error generating the signature
      */
     public static String generateHmacSignature(String method, String uri, String queryString, String timestamp, String requestBody, String secretKey) {
-        try {
-            StringBuilder dataToSign = new StringBuilder();
-            dataToSign.append(method).append("\n");
-            dataToSign.append(uri).append("\n");
+        return generateHmacSignature(method, uri, queryString, timestamp, requestBody, secretKey, MacAlgorithm.DEFAULT);
+    }
+
+    /**
+     * Generates a signature with the given algorithm, which the client names in the {@code X-HMAC-ALGORITHM} header.
+     *
+     * @param method      HTTP method (GET, POST, etc.)
+     * @param uri         Request URI (e.g., /api/demo/sum)
+     * @param queryString Query string (e.g., a=5&b=3)
+     * @param timestamp   Request timestamp in milliseconds since epoch
+     * @param requestBody JSON payload or request body
+     * @param secretKey   The secret key used for signing
+     * @param algorithm   The MAC algorithm
+     * @return Base64 encoded HMAC signature
+     * @throws RuntimeException if there's an error generating the signature
+     */
+    public static String generateHmacSignature(String method, String uri, String queryString, String timestamp,
+                                               String requestBody, String secretKey, MacAlgorithm algorithm) {
+        byte[] hmacBytes;
+        try (HmacSigner.Session session = signer(secretKey, algorithm).begin(method, uri, queryString)) {
+            hmacBytes = session.update(requestBody).finish(timestamp);
+        }
 
-            if (queryString != null && !queryString.isEmpty()) {
-                dataToSign.append(queryString).append("\n");
-            } else {
-                dataToSign.append("\n");
-            }
+        return Base64.getEncoder().encodeToString(hmacBytes);
+    }
 
-            if (requestBody != null && !requestBody.isEmpty()) {
-                dataToSign.append(requestBody).append("\n");
-            }
+    /**
+     * Computes the body digest sent in the {@code X-CONTENT-SHA256} header of the body-digest scheme.
+     *
+     * @param requestBody Request body bytes, may be null for an empty body
+     * @return Base64 encoded SHA-256 digest of the body
+     */
+    public static String computeBodyDigest(byte[] requestBody) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(VerificationSession.BODY_DIGEST_ALGORITHM);
+            return Base64.getEncoder().encodeToString(digest.digest(requestBody != null ? requestBody : new byte[0]));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Error computing body digest", e);
+        }
+    }
 
-            if (timestamp != null && !timestamp.isEmpty()) {
-                dataToSign.append(timestamp);
-            }
+    /**
+     * Generates an HMAC signature for the body-digest scheme ({@code X-HMAC-VERSION: 2}).
+     * The signature covers the body digest instead of the body, after a fixed scheme marker:
+     * <pre>
+     * HMAC-V2/SHA-256\n
+     * METHOD\n
+     * URI\n
+     * QUERY\n
+     * BODY_DIGEST\n
+     * TIMESTAMP
+     * </pre>
+     * so the server can check it before the body arrives and only hash the body while it streams.
+     *
+     * @param method      HTTP method (GET, POST, etc.)
+     * @param uri         Request URI (e.g., /api/demo/sum)
+     * @param queryString Query string (e.g., a=5&b=3)
+     * @param timestamp   Request timestamp in milliseconds since epoch
+     * @param bodyDigest  Body digest from {@link #computeBodyDigest(byte[])}
+     * @param secretKey   The secret key used for signing
+     * @return Base64 encoded HMAC signature
+     */
+    public static String generateDigestSignature(String method, String uri, String queryString, String timestamp,
+                                                 String bodyDigest, String secretKey) {
+        return generateDigestSignature(method, uri, queryString, timestamp, bodyDigest, secretKey, MacAlgorithm.DEFAULT);
+    }
 
-            Mac hmac = Mac.getInstance(HMAC_ALGORITHM);
-            SecretKeySpec secretKeySpec = new SecretKeySpec(
-                    secretKey.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
-            hmac.init(secretKeySpec);
-            byte[] hmacBytes = hmac.doFinal(dataToSign.toString().getBytes(StandardCharsets.UTF_8));
+    /**
+     * Generates a signature for the body-digest scheme with the given algorithm.
+     * The body digest itself is always SHA-256.
+     *
+     * @see #generateDigestSignature(String, String, String, String, String, String)
+     */
+    public static String generateDigestSignature(String method, String uri, String queryString, String timestamp,
+                                                 String bodyDigest, String secretKey, MacAlgorithm algorithm) {
+        byte[] hmacBytes = signer(secretKey, algorithm).signDigest(method, uri, queryString, timestamp, bodyDigest);
+        return Base64.getEncoder().encodeToString(hmacBytes);
+    }
 
-            return Base64.getEncoder().encodeToString(hmacBytes);
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            throw new RuntimeException("Error generating HMAC signature", e);
+    /**
+     * Returns the cached signer for the secret and algorithm, creating it when needed.
+     */
+    private static HmacSigner signer(String secretKey, MacAlgorithm algorithm) {
+        SignerKey key;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(secretKey.getBytes(StandardCharsets.UTF_8));
+            key = new SignerKey(Base64.getEncoder().encodeToString(digest), algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Error computing secret digest", e);
+        }
+        synchronized (SIGNERS) {
+            return SIGNERS.computeIfAbsent(key, k -> new HmacSigner(secretKey, algorithm));
         }
     }
+
+    private record SignerKey(String secretDigest, MacAlgorithm algorithm) {
+    }
 }
@@ -0,0 +1,61 @@
+package me.dhan.hmacdemo.security;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps client secrets in memory. Keys can be added and rotated at runtime.
+ */
+public class InMemoryHmacKeyProvider implements HmacKeyProvider {
+
+    private final Map<String, HmacKeys> keys = new ConcurrentHashMap<>();
+
+    public InMemoryHmacKeyProvider() {
+    }
+
+    /**
+     * @param secrets Initial secrets by key id
+     */
+    public InMemoryHmacKeyProvider(Map<String, String> secrets) {
+        secrets.forEach(this::put);
+    }
+
+    @Override
+    public Optional<HmacKeys> findKeys(String keyId) {
+        return Optional.ofNullable(keys.get(keyId));
+    }
+
+    /**
+     * Registers a key id with a single secret, replacing any existing keys.
+     */
+    public void put(String keyId, String secret) {
+        keys.put(keyId, new HmacKeys(keyId, secret));
+    }
+
+    /**
+     * Registers a key id with a single secret and the algorithms it may sign with, replacing any existing keys.
+     */
+    public void put(String keyId, String secret, List<MacAlgorithm> algorithms) {
+        keys.put(keyId, new HmacKeys(keyId, secret, null, algorithms));
+    }
+
+    /**
+     * Starts a rotation: the new secret becomes current and the old current secret stays valid
+     * as the previous one until {@link #retirePrevious(String)} is called.
+     */
+    public void rotate(String keyId, String newSecret) {
+        keys.compute(keyId, (id, existing) -> existing != null
+                ? new HmacKeys(id, newSecret, existing.currentSecret(), existing.algorithms())
+                : new HmacKeys(id, newSecret));
+    }
+
+    /**
+     * Ends a rotation by dropping the previous secret.
+     */
+    public void retirePrevious(String keyId) {
+        keys.computeIfPresent(keyId, (id, existing) -> new HmacKeys(id, existing.currentSecret(), null,
+                existing.algorithms()));
+    }
+}
@@ -0,0 +1,34 @@
+package me.dhan.hmacdemo.security;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An in-process {@link ReplayStore} backed by a {@link ReplayCache}.
+ * <p>
+ * It only protects the current JVM, which makes it a stand-in for a shared store in tests and
+ * single-node setups, and the storage engine of {@link TcpReplayStoreServer}.
+ */
+public class LocalReplayStore implements ReplayStore {
+
+    private final ReplayCache cache;
+
+    public LocalReplayStore(ReplayCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public CompletableFuture<ReplayCache.Result[]> checkAndRecord(long[] fingerprints, long[] timestampsMillis) {
+        return CompletableFuture.completedFuture(checkAndRecordNow(fingerprints, timestampsMillis));
+    }
+
+    /**
+     * Same as {@link #checkAndRecord(long[], long[])}, returning the results directly.
+     */
+    public ReplayCache.Result[] checkAndRecordNow(long[] fingerprints, long[] timestampsMillis) {
+        ReplayCache.Result[] results = new ReplayCache.Result[fingerprints.length];
+        for (int i = 0; i < fingerprints.length; i++) {
+            results[i] = cache.checkAndRecord(fingerprints[i], timestampsMillis[i]);
+        }
+        return results;
+    }
+}
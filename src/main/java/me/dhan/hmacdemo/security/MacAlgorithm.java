@@ -0,0 +1,60 @@
+package me.dhan.hmacdemo.security;
+
+/**
+ * MAC algorithms a request can be signed with, named in the {@code X-HMAC-ALGORITHM} header.
+ * <p>
+ * Requests without the header are signed with {@link #DEFAULT}. The SHA-512 based variants process
+ * the input in 64-bit words and 128-byte blocks, which usually makes them faster per byte than
+ * HMAC-SHA256 on 64-bit servers without SHA-256 instructions; {@link #HMAC_SHA512_256} keeps that
+ * speed with a 32-byte signature. Which one is fastest depends on the CPU and JDK, so measure with
+ * {@code MacAlgorithmBenchmark} before choosing.
+ */
+public enum MacAlgorithm {
+
+    HMAC_SHA256("HmacSHA256", "HMAC-SHA256"),
+    HMAC_SHA384("HmacSHA384", "HMAC-SHA384"),
+    HMAC_SHA512("HmacSHA512", "HMAC-SHA512"),
+    HMAC_SHA512_256("HmacSHA512/256", "HMAC-SHA512-256");
+
+    /** The algorithm of requests that do not name one. */
+    public static final MacAlgorithm DEFAULT = HMAC_SHA256;
+
+    private static final MacAlgorithm[] VALUES = values();
+
+    private final String jcaName;
+    private final String headerValue;
+
+    MacAlgorithm(String jcaName, String headerValue) {
+        this.jcaName = jcaName;
+        this.headerValue = headerValue;
+    }
+
+    /**
+     * Returns the name of the algorithm in the Java Cryptography Architecture, e.g. {@code HmacSHA256}.
+     */
+    public String getJcaName() {
+        return jcaName;
+    }
+
+    /**
+     * Returns the name sent in the algorithm header, e.g. {@code HMAC-SHA256}.
+     */
+    public String getHeaderValue() {
+        return headerValue;
+    }
+
+    /**
+     * Looks up an algorithm by its header name, ignoring case.
+     *
+     * @param headerValue The value of the algorithm header
+     * @return The algorithm, or null if the name is unknown
+     */
+    public static MacAlgorithm fromHeader(String headerValue) {
+        for (MacAlgorithm algorithm : VALUES) {
+            if (algorithm.headerValue.equalsIgnoreCase(headerValue)) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+}
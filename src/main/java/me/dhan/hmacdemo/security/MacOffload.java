@@ -0,0 +1,156 @@
+package me.dhan.hmacdemo.security;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small, dedicated pool that computes MACs over large request bodies.
+ * <p>
+ * Hashing a body of many megabytes keeps a core busy for milliseconds. Doing it on the request
+ * threads lets a few large uploads take every core and delay the small requests queued behind them.
+ * Moving that work to a pool with one thread per core bounds the CPU large bodies can take, and the
+ * bounded queue in front of it sheds load instead of letting hashing work pile up: when the queue is
+ * full, {@link #execute(Runnable)} and {@link #run(Task)} throw {@link RejectedExecutionException}
+ * and the filter answers 503.
+ * <p>
+ * The pool is owned by the filter, which {@link #close() closes} it when it is destroyed.
+ */
+final class MacOffload implements AutoCloseable {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    /**
+     * Work run on the pool that may fail with an I/O error.
+     */
+    interface Task {
+        void run() throws IOException;
+    }
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param threads       Number of hashing threads, usually the number of cores
+     * @param queueCapacity Number of bodies that may wait for a thread before new ones are rejected
+     */
+    MacOffload(int threads, int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "hmac-mac-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Returns whether the queue is full, so a new body would be rejected. Checked before a body is
+     * read, so a request that is going to be shed does not cost the read first.
+     */
+    boolean isSaturated() {
+        return executor.getQueue().remainingCapacity() == 0;
+    }
+
+    /**
+     * Runs a task on the pool without waiting for it.
+     *
+     * @throws RejectedExecutionException if the queue is full
+     */
+    void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Runs a task on the pool and waits for it to finish.
+     * <p>
+     * The calling request thread is parked for the duration. That is deliberate back-pressure: the
+     * CPU spent on large bodies stays bounded by the pool, while the number of requests waiting is
+     * bounded by the container's threads and the queue. Callers that must not park use
+     * {@link #execute(Runnable)} and continue from the task instead.
+     * <p>
+     * The task works on buffers owned by the caller, so the wait is not cut short by an interrupt:
+     * the interrupt status is restored once the task is done.
+     *
+     * @throws RejectedExecutionException if the queue is full or the pool has been closed
+     */
+    void run(Task task) throws IOException {
+        Future<Void> future = executor.submit(() -> {
+            task.run();
+            return null;
+        });
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        } catch (CancellationException e) {
+            // Dropped from the queue by close()
+            throw new RejectedExecutionException("MAC offload pool was closed", e);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bodies waiting for a hashing thread.
+     */
+    int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of bodies being hashed right now.
+     */
+    int activeCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Stops taking new bodies and waits a few seconds for the queued ones to be hashed. Tasks still
+     * queued after that are dropped, and callers waiting in {@link #run(Task)} for them fail with
+     * {@link RejectedExecutionException}. Closing twice is harmless.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Runnable task : executor.shutdownNow()) {
+            if (task instanceof Future<?> future) {
+                future.cancel(false);
+            }
+        }
+    }
+}
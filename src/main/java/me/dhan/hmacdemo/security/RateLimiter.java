@@ -0,0 +1,89 @@
+package me.dhan.hmacdemo.security;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token buckets for an unbounded set of callers, kept in a fixed-size striped table.
+ * <p>
+ * Each bucket is a single {@code long} in an {@link AtomicLongArray}: the time at which the bucket
+ * will be full again, as in the generic cell rate algorithm. A bucket refills one token every
+ * {@code 1 / permitsPerSecond} and holds at most {@code burst} tokens, so taking a token is one read
+ * and one CAS, with no lock and no per-caller allocation. Callers are hashed onto the table; callers
+ * that share a slot share its budget, which only ever makes the limit stricter, so the table should
+ * be sized well above the number of concurrently active callers.
+ */
+public final class RateLimiter {
+
+    private final AtomicLongArray table;
+    private final int mask;
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final long origin = System.nanoTime();
+
+    /**
+     * @param permitsPerSecond Sustained rate per caller
+     * @param burst            Maximum number of tokens a caller can save up
+     * @param tableSize        Number of buckets, rounded up to a power of two
+     */
+    public RateLimiter(double permitsPerSecond, int burst, int tableSize) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.table = new AtomicLongArray(Integer.highestOneBit(Math.max(1, tableSize - 1)) << 1);
+        this.mask = table.length() - 1;
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.capacityNanos = intervalNanos * burst;
+    }
+
+    /**
+     * Takes a token from the caller's bucket if one is available.
+     *
+     * @param caller Key of the caller, e.g. a key id or a remote address
+     * @return 0 if a token was taken, otherwise the time in nanoseconds until one is available
+     */
+    public long tryAcquire(String caller) {
+        return tryAcquire(caller, now());
+    }
+
+    long tryAcquire(String caller, long nowNanos) {
+        int index = indexOf(caller);
+        while (true) {
+            long fullAt = table.get(index);
+            long next = Math.max(fullAt, nowNanos) + intervalNanos;
+            long wait = next - nowNanos - capacityNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (table.compareAndSet(index, fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Returns how long the caller has to wait for a token, without taking one.
+     *
+     * @return 0 if a token is available, otherwise the time in nanoseconds until one is
+     */
+    public long waitTime(String caller) {
+        return waitTime(caller, now());
+    }
+
+    long waitTime(String caller, long nowNanos) {
+        long fullAt = table.get(indexOf(caller));
+        return Math.max(0, Math.max(fullAt, nowNanos) + intervalNanos - nowNanos - capacityNanos);
+    }
+
+    private int indexOf(String caller) {
+        int hash = caller != null ? caller.hashCode() * 0x9E3779B9 : 0;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Time since the limiter was created, so an empty slot (0) always counts as a full bucket.
+     */
+    private long now() {
+        return System.nanoTime() - origin + capacityNanos;
+    }
+}
@@ -0,0 +1,26 @@
+package me.dhan.hmacdemo.security;
+
+/**
+ * Body format of the responses sent for an {@link HmacRejection}, chosen with {@code hmac.reject.format}.
+ */
+public enum RejectionFormat {
+
+    /** The message as plain text, e.g. {@code Invalid HMAC signature}. */
+    TEXT("text/plain;charset=UTF-8"),
+
+    /**
+     * A JSON object with the status, a stable error code and the message, e.g.
+     * {@code {"status":401,"error":"invalid-signature","message":"Invalid HMAC signature"}}.
+     */
+    JSON("application/json");
+
+    private final String contentType;
+
+    RejectionFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
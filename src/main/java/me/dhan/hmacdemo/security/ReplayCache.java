@@ -0,0 +1,173 @@
+package me.dhan.hmacdemo.security;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Remembers the signatures of accepted requests for as long as their timestamps are valid,
+ * so that a signed request cannot be replayed inside the validity window.
+ * <p>
+ * Entries are 64-bit fingerprints taken from the computed MAC, grouped in time buckets by the
+ * request timestamp. The buckets form a ring that spans the validity window; when a bucket's slot
+ * is needed for a newer time range, the old bucket is dropped as a whole, so expiry never scans
+ * entries. Each bucket is a fixed-size open-addressing table updated with CAS only, which keeps
+ * the cache lock-free and its memory bounded by {@code bucket count * table size * 8} bytes.
+ */
+public final class ReplayCache {
+
+    /**
+     * Outcome of {@link #checkAndRecord(long, long)}.
+     */
+    public enum Result {
+        /** First time this fingerprint is seen; it has been recorded. */
+        ACCEPTED,
+        /** The fingerprint was already recorded for this time range. */
+        REPLAYED,
+        /** The timestamp is older than anything the cache still tracks. */
+        EXPIRED,
+        /** The bucket for this time range is full; the request cannot be checked. */
+        FULL,
+        /** A shared {@link ReplayStore} could not be reached; the request cannot be checked. */
+        UNAVAILABLE
+    }
+
+    private static final long EMPTY = 0L;
+
+    private final long bucketMillis;
+    private final int maxEntriesPerBucket;
+    private final int tableSize;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    /**
+     * @param window              Span of timestamps that can be accepted, including future clock skew
+     * @param bucketWidth         Time range covered by one bucket
+     * @param maxEntriesPerBucket Maximum number of requests recorded per bucket
+     */
+    public ReplayCache(Duration window, Duration bucketWidth, int maxEntriesPerBucket) {
+        this.bucketMillis = bucketWidth.toMillis();
+        this.maxEntriesPerBucket = maxEntriesPerBucket;
+        // Keep the table at most 75% full so probe sequences stay short
+        this.tableSize = Integer.highestOneBit(Math.max(2, maxEntriesPerBucket * 4 / 3 - 1)) << 1;
+        // One extra bucket so the ring always covers the whole window plus the partially filled bucket
+        int bucketCount = (int) ((window.toMillis() + bucketMillis - 1) / bucketMillis) + 1;
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+    }
+
+    /**
+     * Derives a fingerprint from a computed MAC. The MAC already covers the method, URI, query,
+     * body and timestamp, and its bytes are uniformly distributed, so its first 8 bytes are used as is.
+     */
+    public static long fingerprint(byte[] mac) {
+        long fingerprint = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            fingerprint = (fingerprint << 8) | (mac[i] & 0xFF);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Records the fingerprint of a request unless it was already seen.
+     *
+     * @param fingerprint     Fingerprint of the request signature
+     * @param timestampMillis Request timestamp in milliseconds since epoch
+     * @return Whether the request is new, a replay, or cannot be checked
+     */
+    public Result checkAndRecord(long fingerprint, long timestampMillis) {
+        long epoch = Math.floorDiv(timestampMillis, bucketMillis);
+        Bucket bucket = bucketFor(epoch);
+        if (bucket == null) {
+            return Result.EXPIRED;
+        }
+        return bucket.checkAndRecord(fingerprint == EMPTY ? 1 : fingerprint);
+    }
+
+    /**
+     * Checks the fingerprint of a request like {@link #checkAndRecord(long, long)}, without recording it.
+     *
+     * @param fingerprint     Fingerprint of the request signature
+     * @param timestampMillis Request timestamp in milliseconds since epoch
+     * @return {@link Result#ACCEPTED} if recording it now would succeed, otherwise why it would not
+     */
+    public Result check(long fingerprint, long timestampMillis) {
+        long epoch = Math.floorDiv(timestampMillis, bucketMillis);
+        Bucket bucket = bucketFor(epoch);
+        if (bucket == null) {
+            return Result.EXPIRED;
+        }
+        return bucket.check(fingerprint == EMPTY ? 1 : fingerprint);
+    }
+
+    private Bucket bucketFor(long epoch) {
+        int index = (int) Math.floorMod(epoch, (long) buckets.length());
+        while (true) {
+            Bucket current = buckets.get(index);
+            if (current != null && current.epoch == epoch) {
+                return current;
+            }
+            if (current != null && current.epoch > epoch) {
+                // The slot already moved on to a newer time range
+                return null;
+            }
+            // Empty slot, or one holding a time range that has left the window: drop it wholesale
+            Bucket replacement = new Bucket(epoch, tableSize);
+            if (buckets.compareAndSet(index, current, replacement)) {
+                return replacement;
+            }
+        }
+    }
+
+    private final class Bucket {
+        private final long epoch;
+        private final AtomicLongArray table;
+        private final AtomicInteger size = new AtomicInteger();
+
+        private Bucket(long epoch, int tableSize) {
+            this.epoch = epoch;
+            this.table = new AtomicLongArray(tableSize);
+        }
+
+        private Result checkAndRecord(long fingerprint) {
+            int mask = table.length() - 1;
+            int index = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                long current = table.get(index);
+                if (current == fingerprint) {
+                    return Result.REPLAYED;
+                }
+                if (current == EMPTY) {
+                    if (size.get() >= maxEntriesPerBucket) {
+                        return Result.FULL;
+                    }
+                    if (table.compareAndSet(index, EMPTY, fingerprint)) {
+                        size.incrementAndGet();
+                        return Result.ACCEPTED;
+                    }
+                    // Another thread took the slot; it may have recorded the same fingerprint
+                    if (table.get(index) == fingerprint) {
+                        return Result.REPLAYED;
+                    }
+                }
+                index = (index + 1) & mask;
+            }
+            return Result.FULL;
+        }
+
+        private Result check(long fingerprint) {
+            int mask = table.length() - 1;
+            int index = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                long current = table.get(index);
+                if (current == fingerprint) {
+                    return Result.REPLAYED;
+                }
+                if (current == EMPTY) {
+                    return size.get() >= maxEntriesPerBucket ? Result.FULL : Result.ACCEPTED;
+                }
+                index = (index + 1) & mask;
+            }
+            return Result.FULL;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package me.dhan.hmacdemo.security;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks accepted requests for replays, first against a node-local {@link ReplayCache} and then,
+ * when one is configured, against a {@link ReplayStore} shared by all nodes.
+ * <p>
+ * The local cache acts as a near-cache: a replay sent to the same node is rejected without a round
+ * trip, and only requests that are new to this node reach the store. A request is recorded in the
+ * local cache only once the store has accepted it or reported it as a replay, so a retry of a request
+ * the store could not check is not mistaken for a replay. Checks are queued and sent in
+ * batches of up to {@code maxBatchSize}; up to {@code maxInFlightBatches} batches may be outstanding,
+ * and checks arriving while all of them are busy go out together in the next one as soon as a batch
+ * completes. A caller waits for its own result at most {@code timeout}. When the store fails or does
+ * not answer in time, the request is accepted if {@code failOpen} is set and reported as
+ * {@link ReplayCache.Result#UNAVAILABLE} otherwise.
+ */
+public final class ReplayProtection {
+
+    private final ReplayCache nearCache;
+    private final ReplayStore store;
+    private final long timeoutNanos;
+    private final boolean failOpen;
+    private final int maxBatchSize;
+    private final int maxInFlightBatches;
+    private final HmacMetrics metrics;
+    private final Queue<PendingCheck> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlightBatches = new AtomicInteger();
+
+    /**
+     * Creates protection that only uses the node-local cache.
+     */
+    public ReplayProtection(ReplayCache nearCache) {
+        this(nearCache, null, Duration.ZERO, false, 1, 1, HmacMetrics.noop());
+    }
+
+    /**
+     * @param nearCache          Node-local cache checked before the store
+     * @param store              Shared store, or null to rely on the local cache alone
+     * @param timeout            How long a request waits for the store
+     * @param failOpen           Whether to accept requests the store could not check
+     * @param maxBatchSize       Maximum number of checks sent in one call to the store
+     * @param maxInFlightBatches Maximum number of outstanding calls to the store
+     * @param metrics            Metrics recording store failures
+     */
+    public ReplayProtection(ReplayCache nearCache, ReplayStore store, Duration timeout, boolean failOpen,
+                            int maxBatchSize, int maxInFlightBatches, HmacMetrics metrics) {
+        this.nearCache = nearCache;
+        this.store = store;
+        this.timeoutNanos = timeout.toNanos();
+        this.failOpen = failOpen;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxInFlightBatches = Math.max(1, maxInFlightBatches);
+        this.metrics = metrics;
+    }
+
+    /**
+     * Records the fingerprint of an accepted request unless it was already seen on any node.
+     *
+     * @param fingerprint     Fingerprint of the request signature
+     * @param timestampMillis Request timestamp in milliseconds since epoch
+     * @return Whether the request is new, a replay, or cannot be checked
+     */
+    public ReplayCache.Result checkAndRecord(long fingerprint, long timestampMillis) {
+        if (store == null) {
+            return nearCache.checkAndRecord(fingerprint, timestampMillis);
+        }
+        ReplayCache.Result local = nearCache.check(fingerprint, timestampMillis);
+        if (local != ReplayCache.Result.ACCEPTED) {
+            return local;
+        }
+
+        ReplayCache.Result shared;
+        try {
+            shared = submit(fingerprint, timestampMillis).get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            shared = unavailable();
+        } catch (ExecutionException | TimeoutException e) {
+            shared = unavailable();
+        }
+        return recordLocally(fingerprint, timestampMillis, shared);
+    }
+
+    /**
+     * Like {@link #checkAndRecord(long, long)}, but completes the returned future instead of waiting
+     * for the store, for callers that must not block such as an event loop. The future never completes
+     * exceptionally; a failure or timeout of the store completes it as {@code checkAndRecord} would return.
+     */
+    public CompletableFuture<ReplayCache.Result> checkAndRecordAsync(long fingerprint, long timestampMillis) {
+        if (store == null) {
+            return CompletableFuture.completedFuture(nearCache.checkAndRecord(fingerprint, timestampMillis));
+        }
+        ReplayCache.Result local = nearCache.check(fingerprint, timestampMillis);
+        if (local != ReplayCache.Result.ACCEPTED) {
+            return CompletableFuture.completedFuture(local);
+        }
+
+        return submit(fingerprint, timestampMillis)
+                .orTimeout(timeoutNanos, TimeUnit.NANOSECONDS)
+                .exceptionally(error -> unavailable())
+                .thenApply(shared -> recordLocally(fingerprint, timestampMillis, shared));
+    }
+
+    /**
+     * Records a request the store has answered for in the local cache, so later replays to this node
+     * are rejected without a round trip. A request the store could not check is left out: recording it
+     * would turn the client's retry into a replay.
+     */
+    private ReplayCache.Result recordLocally(long fingerprint, long timestampMillis, ReplayCache.Result shared) {
+        if (shared == ReplayCache.Result.ACCEPTED || shared == ReplayCache.Result.REPLAYED) {
+            nearCache.checkAndRecord(fingerprint, timestampMillis);
+        }
+        return shared;
+    }
+
+    private CompletableFuture<ReplayCache.Result> submit(long fingerprint, long timestampMillis) {
+        PendingCheck check = new PendingCheck(fingerprint, timestampMillis);
+        pending.add(check);
+        flush();
+        return check.result;
+    }
+
+    private ReplayCache.Result unavailable() {
+        metrics.recordReplayStoreError();
+        return failOpen ? ReplayCache.Result.ACCEPTED : ReplayCache.Result.UNAVAILABLE;
+    }
+
+    /**
+     * Sends queued checks while fewer than the maximum number of batches are outstanding.
+     * A completing batch calls this again, so checks queued while all batches were busy are not stranded.
+     */
+    private void flush() {
+        while (!pending.isEmpty()) {
+            int inFlight = inFlightBatches.get();
+            if (inFlight >= maxInFlightBatches) {
+                return;
+            }
+            if (!inFlightBatches.compareAndSet(inFlight, inFlight + 1)) {
+                continue;
+            }
+            List<PendingCheck> batch = new ArrayList<>(Math.min(maxBatchSize, 64));
+            PendingCheck check;
+            while (batch.size() < maxBatchSize && (check = pending.poll()) != null) {
+                batch.add(check);
+            }
+            if (batch.isEmpty()) {
+                inFlightBatches.decrementAndGet();
+            } else {
+                send(batch);
+            }
+        }
+    }
+
+    private void send(List<PendingCheck> batch) {
+        int size = batch.size();
+        long[] fingerprints = new long[size];
+        long[] timestamps = new long[size];
+        for (int i = 0; i < size; i++) {
+            fingerprints[i] = batch.get(i).fingerprint;
+            timestamps[i] = batch.get(i).timestampMillis;
+        }
+
+        CompletableFuture<ReplayCache.Result[]> results;
+        try {
+            results = store.checkAndRecord(fingerprints, timestamps);
+        } catch (RuntimeException e) {
+            results = CompletableFuture.failedFuture(e);
+        }
+        results.whenComplete((outcomes, error) -> {
+            inFlightBatches.decrementAndGet();
+            for (int i = 0; i < size; i++) {
+                CompletableFuture<ReplayCache.Result> result = batch.get(i).result;
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else if (outcomes == null || outcomes.length != size) {
+                    result.completeExceptionally(new IllegalStateException("Replay store answered "
+                            + (outcomes == null ? 0 : outcomes.length) + " results for " + size + " checks"));
+                } else {
+                    result.complete(outcomes[i]);
+                }
+            }
+            flush();
+        });
+    }
+
+    private static final class PendingCheck {
+        private final long fingerprint;
+        private final long timestampMillis;
+        private final CompletableFuture<ReplayCache.Result> result = new CompletableFuture<>();
+
+        private PendingCheck(long fingerprint, long timestampMillis) {
+            this.fingerprint = fingerprint;
+            this.timestampMillis = timestampMillis;
+        }
+    }
+}
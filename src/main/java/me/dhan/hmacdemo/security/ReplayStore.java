@@ -0,0 +1,25 @@
+package me.dhan.hmacdemo.security;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A replay store shared by all nodes, so a signed request accepted by one node is rejected as a
+ * replay by every other node within the validity window.
+ * <p>
+ * Calls are batched: {@link ReplayProtection} collects the checks of concurrent requests and sends
+ * them together, and may have several batches outstanding at once, so implementations backed by a
+ * remote service should pipeline requests over a connection rather than wait for each reply.
+ * Implementations must be thread-safe and should never block the caller; failures are reported
+ * through the returned future.
+ */
+public interface ReplayStore {
+
+    /**
+     * Records each fingerprint unless it was already recorded, as one atomic check-and-set per entry.
+     *
+     * @param fingerprints     Fingerprints of the request signatures, see {@link ReplayCache#fingerprint(byte[])}
+     * @param timestampsMillis Request timestamps, in the same order
+     * @return The outcome for each entry, in the same order
+     */
+    CompletableFuture<ReplayCache.Result[]> checkAndRecord(long[] fingerprints, long[] timestampsMillis);
+}
@@ -0,0 +1,185 @@
+package me.dhan.hmacdemo.security;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the {@link RoutePolicy} of a request path in a table of routes compiled into a trie over path segments.
+ * <p>
+ * A route is either a literal path such as {@code /api/demo/sum}, which matches only that path, or a
+ * prefix ending in {@code /**} such as {@code /swagger-ui/**}, which matches the prefix itself and every
+ * path below it. The most specific route wins: an exact route over a prefix, a longer prefix over a
+ * shorter one. Paths without a route get {@link RoutePolicy#DEFAULT}.
+ * <p>
+ * Segments are compared in their raw form as they appear in the request URI, so an encoded path or one
+ * with an extra slash never matches a route written without them and is verified as usual.
+ * {@link #match(String)} walks the path once, hashing each segment in place and looking it up in the
+ * node's open-addressing table, so it runs in time linear in the path length and allocates nothing.
+ */
+public final class RouteMatcher {
+
+    /** A matcher without routes, for which every path requires a signature. */
+    public static final RouteMatcher EMPTY = compile(List.of());
+
+    private static final String PREFIX_WILDCARD = "**";
+
+    private final Node root;
+    private final List<Route> routes;
+
+    private RouteMatcher(Node root, List<Route> routes) {
+        this.root = root;
+        this.routes = routes;
+    }
+
+    /**
+     * A configured route.
+     *
+     * @param pattern Literal path, or a path prefix followed by {@code /**}
+     * @param policy  Policy of the requests matching the pattern
+     */
+    public record Route(String pattern, RoutePolicy policy) {
+    }
+
+    /**
+     * Compiles a route table.
+     *
+     * @throws IllegalArgumentException if a pattern is malformed or listed twice
+     */
+    public static RouteMatcher compile(List<Route> routes) {
+        NodeBuilder root = new NodeBuilder();
+        for (Route route : routes) {
+            String pattern = route.pattern();
+            if (pattern == null || !pattern.startsWith("/")) {
+                throw new IllegalArgumentException("Route pattern must start with '/': " + pattern);
+            }
+            String[] segments = pattern.length() == 1 ? new String[0] : pattern.substring(1).split("/", -1);
+            boolean prefix = segments.length > 0 && segments[segments.length - 1].equals(PREFIX_WILDCARD);
+            int literalSegments = prefix ? segments.length - 1 : segments.length;
+
+            NodeBuilder node = root;
+            for (int i = 0; i < literalSegments; i++) {
+                if (segments[i].contains("*")) {
+                    throw new IllegalArgumentException(
+                            "Wildcards are only supported as a trailing '/**' in route pattern: " + pattern);
+                }
+                node = node.children.computeIfAbsent(segments[i], segment -> new NodeBuilder());
+            }
+            if (prefix ? node.prefix != null : node.exact != null) {
+                throw new IllegalArgumentException("Route pattern configured twice: " + pattern);
+            }
+            if (prefix) {
+                node.prefix = route.policy();
+            } else {
+                node.exact = route.policy();
+            }
+        }
+        return new RouteMatcher(root.build(), List.copyOf(routes));
+    }
+
+    /**
+     * Returns the routes the matcher was compiled from, in their configured order.
+     */
+    public List<Route> routes() {
+        return routes;
+    }
+
+    /**
+     * Returns the policy of the most specific route matching the path.
+     *
+     * @param path Raw request path, e.g. {@link jakarta.servlet.http.HttpServletRequest#getRequestURI()}
+     */
+    public RoutePolicy match(String path) {
+        Node node = root;
+        RoutePolicy longestPrefix = node.prefix;
+        int length = path.length();
+        int start = length > 0 && path.charAt(0) == '/' ? 1 : 0;
+        if (start < length) {
+            while (true) {
+                int end = start;
+                int hash = 0;
+                while (end < length && path.charAt(end) != '/') {
+                    // Same hash as String.hashCode() of the segment, without creating the string
+                    hash = 31 * hash + path.charAt(end);
+                    end++;
+                }
+                node = node.child(path, start, end - start, hash);
+                if (node == null) {
+                    return longestPrefix != null ? longestPrefix : RoutePolicy.DEFAULT;
+                }
+                if (node.prefix != null) {
+                    longestPrefix = node.prefix;
+                }
+                if (end == length) {
+                    break;
+                }
+                start = end + 1;
+            }
+        }
+        if (node.exact != null) {
+            return node.exact;
+        }
+        return longestPrefix != null ? longestPrefix : RoutePolicy.DEFAULT;
+    }
+
+    /**
+     * A path segment of the trie with its child segments in an open-addressing hash table.
+     */
+    private static final class Node {
+        private final String[] keys;
+        private final int[] hashes;
+        private final Node[] children;
+        private final int mask;
+        private final RoutePolicy exact;
+        private final RoutePolicy prefix;
+
+        private Node(Map<String, Node> children, RoutePolicy exact, RoutePolicy prefix) {
+            int capacity = Integer.highestOneBit(Math.max(1, children.size()) * 2 - 1) << 1;
+            this.keys = new String[capacity];
+            this.hashes = new int[capacity];
+            this.children = new Node[capacity];
+            this.mask = capacity - 1;
+            this.exact = exact;
+            this.prefix = prefix;
+            children.forEach((segment, child) -> {
+                int hash = segment.hashCode();
+                int index = spread(hash) & mask;
+                while (keys[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = segment;
+                hashes[index] = hash;
+                this.children[index] = child;
+            });
+        }
+
+        private Node child(String path, int start, int length, int hash) {
+            for (int index = spread(hash) & mask; keys[index] != null; index = (index + 1) & mask) {
+                String key = keys[index];
+                if (hashes[index] == hash && key.length() == length && path.regionMatches(start, key, 0, length)) {
+                    return children[index];
+                }
+            }
+            return null;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * Mutable node used while compiling the routes.
+     */
+    private static final class NodeBuilder {
+        private final Map<String, NodeBuilder> children = new LinkedHashMap<>();
+        private RoutePolicy exact;
+        private RoutePolicy prefix;
+
+        private Node build() {
+            Map<String, Node> built = new LinkedHashMap<>();
+            children.forEach((segment, child) -> built.put(segment, child.build()));
+            return new Node(built, exact, prefix);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package me.dhan.hmacdemo.security;
+
+import org.springframework.util.unit.DataSize;
+
+/**
+ * How the HMAC filter treats requests to a route of the {@link RouteMatcher}.
+ *
+ * @param exempt             Whether requests pass without a signature, e.g. health probes and API docs
+ * @param bodyDigestRequired Whether requests must be signed with the body-digest scheme (version 2)
+ * @param maxBodySize        Largest accepted request body, or null for {@code hmac.body.max-size}
+ * @param replayCheck        Whether requests are checked for replays, or null to follow
+ *                           {@code hmac.replay.skip-safe-methods}; has no effect when replay protection is disabled
+ */
+public record RoutePolicy(boolean exempt, boolean bodyDigestRequired, DataSize maxBodySize, Boolean replayCheck) {
+
+    /** The policy of paths without a route: a signature is required and the global settings apply. */
+    public static final RoutePolicy DEFAULT = new RoutePolicy(false, false, null, null);
+}
@@ -0,0 +1,118 @@
+package me.dhan.hmacdemo.security;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holds a request body while its signature is being verified.
+ * <p>
+ * Bytes are kept on the heap up to the spill threshold. Once a body grows beyond it, the heap
+ * contents are moved to a temporary file and the rest of the body is appended there, so large
+ * uploads do not stay on the heap. The temporary file, and any stream opened over it, is closed
+ * and deleted when the buffer is closed.
+ */
+final class SpillingBodyBuffer implements Closeable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final String SPILL_FILE_PREFIX = "hmac-body-";
+
+    private final int spillThreshold;
+    private final Path spillDirectory;
+
+    private byte[] heap;
+    private int heapSize;
+    private Path spillFile;
+    private OutputStream spillStream;
+    private final List<InputStream> openedStreams = new ArrayList<>(1);
+    private long size;
+
+    /**
+     * @param spillThreshold The largest body kept on the heap, in bytes
+     * @param spillDirectory Directory for temporary files, or null for the system default
+     */
+    SpillingBodyBuffer(int spillThreshold, Path spillDirectory) {
+        this.spillThreshold = spillThreshold;
+        this.spillDirectory = spillDirectory;
+        this.heap = new byte[Math.min(INITIAL_CAPACITY, spillThreshold)];
+    }
+
+    /**
+     * Appends a chunk of the body.
+     */
+    void write(byte[] chunk, int offset, int length) throws IOException {
+        if (spillStream == null && heapSize + length > spillThreshold) {
+            spill();
+        }
+        if (spillStream != null) {
+            spillStream.write(chunk, offset, length);
+        } else {
+            if (heapSize + length > heap.length) {
+                heap = Arrays.copyOf(heap, Math.min(spillThreshold, Math.max(heap.length * 2, heapSize + length)));
+            }
+            System.arraycopy(chunk, offset, heap, heapSize, length);
+            heapSize += length;
+        }
+        size += length;
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the body has been moved to a temporary file.
+     */
+    boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * Opens a new stream over the buffered body. Writing must be finished before this is called.
+     */
+    InputStream openInputStream() throws IOException {
+        if (spillFile == null) {
+            return new ByteArrayInputStream(heap, 0, heapSize);
+        }
+        spillStream.flush();
+        InputStream inputStream = Files.newInputStream(spillFile, StandardOpenOption.READ);
+        openedStreams.add(inputStream);
+        return inputStream;
+    }
+
+    @Override
+    public void close() throws IOException {
+        heap = null;
+        if (spillFile != null) {
+            try {
+                for (InputStream inputStream : openedStreams) {
+                    inputStream.close();
+                }
+                spillStream.close();
+            } finally {
+                Files.deleteIfExists(spillFile);
+            }
+        }
+    }
+
+    private void spill() throws IOException {
+        spillFile = spillDirectory != null
+                ? Files.createTempFile(spillDirectory, SPILL_FILE_PREFIX, ".tmp")
+                : Files.createTempFile(SPILL_FILE_PREFIX, ".tmp");
+        spillStream = Files.newOutputStream(spillFile, StandardOpenOption.WRITE);
+        spillStream.write(heap, 0, heapSize);
+        heap = null;
+        heapSize = 0;
+    }
+}
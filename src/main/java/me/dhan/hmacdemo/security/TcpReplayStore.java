@@ -0,0 +1,272 @@
+package me.dhan.hmacdemo.security;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A {@link ReplayStore} client for {@link TcpReplayStoreServer}.
+ * <p>
+ * All calls share one connection and are pipelined. A call only queues its request and returns at
+ * once, so it never blocks the caller, be it an event loop or a virtual thread. A writer thread
+ * connects, writes the queued requests and flushes them together, and a reader thread completes the
+ * outstanding calls in order as the responses arrive. When the connection fails, or the server
+ * leaves a call unanswered for longer than the response timeout, every outstanding call fails and
+ * the next request reconnects.
+ */
+public class TcpReplayStore implements ReplayStore, Closeable {
+
+    private static final ReplayCache.Result[] RESULTS = ReplayCache.Result.values();
+    private static final int MAX_QUEUED_CALLS = 1024;
+
+    private final InetSocketAddress address;
+    private final int connectTimeoutMillis;
+    private final long responseTimeoutNanos;
+    private final BlockingQueue<Call> outgoing = new ArrayBlockingQueue<>(MAX_QUEUED_CALLS);
+    private final Thread writer;
+    // Only replaced by the writer thread
+    private volatile Connection connection;
+    private volatile boolean closed;
+
+    /**
+     * @param address         Address of the replay store server
+     * @param connectTimeout  Maximum time to wait for a connection
+     * @param responseTimeout Maximum time the server may leave a call unanswered before the
+     *                        connection is considered broken
+     */
+    public TcpReplayStore(InetSocketAddress address, Duration connectTimeout, Duration responseTimeout) {
+        this.address = address;
+        this.connectTimeoutMillis = Math.toIntExact(connectTimeout.toMillis());
+        this.responseTimeoutNanos = responseTimeout.toNanos();
+        this.writer = new Thread(this::writeCalls, "replay-store-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Parses a {@code host:port} address.
+     */
+    public static InetSocketAddress parseAddress(String address) {
+        int separator = address.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Replay store address must be host:port but was " + address);
+        }
+        return InetSocketAddress.createUnresolved(address.substring(0, separator),
+                Integer.parseInt(address.substring(separator + 1)));
+    }
+
+    @Override
+    public CompletableFuture<ReplayCache.Result[]> checkAndRecord(long[] fingerprints, long[] timestampsMillis) {
+        CompletableFuture<ReplayCache.Result[]> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(new IOException("Replay store client is closed"));
+            return result;
+        }
+        if (fingerprints.length > TcpReplayStoreServer.MAX_BATCH_SIZE) {
+            result.completeExceptionally(new IllegalArgumentException("Batch too large: " + fingerprints.length));
+            return result;
+        }
+        if (!outgoing.offer(new Call(fingerprints, timestampsMillis, result))) {
+            result.completeExceptionally(new IOException("Too many calls waiting for the replay store"));
+        } else if (closed) {
+            // Closed while the call was queued; the writer may already be gone
+            failQueued(new IOException("Replay store client is closed"));
+        }
+        return result;
+    }
+
+    /**
+     * Runs on the writer thread: takes the queued calls, connecting when needed, and writes every call
+     * that is waiting before flushing, so concurrent calls share a single flush.
+     */
+    private void writeCalls() {
+        while (!closed) {
+            Call call;
+            try {
+                call = outgoing.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            Connection current;
+            try {
+                current = connection();
+            } catch (IOException e) {
+                // Fail what is waiting now rather than letting each call wait for its own connect attempt
+                call.result.completeExceptionally(e);
+                failQueued(e);
+                continue;
+            }
+            try {
+                do {
+                    current.write(call);
+                } while ((call = outgoing.poll()) != null);
+                current.out.flush();
+            } catch (IOException e) {
+                current.fail(e);
+            }
+        }
+        IOException closedError = new IOException("Replay store client is closed");
+        Connection current = connection;
+        if (current != null) {
+            current.fail(closedError);
+        }
+        failQueued(closedError);
+    }
+
+    private Connection connection() throws IOException {
+        Connection current = connection;
+        if (current == null || current.failed) {
+            InetSocketAddress resolved = address.isUnresolved()
+                    ? new InetSocketAddress(address.getHostString(), address.getPort())
+                    : address;
+            Socket socket = new Socket();
+            try {
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout((int) Math.max(1, Math.min(Integer.MAX_VALUE, responseTimeoutNanos / 1_000_000)));
+                socket.connect(resolved, connectTimeoutMillis);
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+            current = new Connection(socket, responseTimeoutNanos);
+            connection = current;
+            current.startReader();
+        }
+        return current;
+    }
+
+    private void failQueued(IOException cause) {
+        Call call;
+        while ((call = outgoing.poll()) != null) {
+            call.result.completeExceptionally(cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        IOException closedError = new IOException("Replay store client is closed");
+        Connection current = connection;
+        if (current != null) {
+            // Also unblocks the writer if it is stuck writing to an unresponsive server
+            current.fail(closedError);
+        }
+        failQueued(closedError);
+    }
+
+    private static final class Call {
+        private final long[] fingerprints;
+        private final long[] timestampsMillis;
+        private final CompletableFuture<ReplayCache.Result[]> result;
+        private long sentNanos;
+
+        private Call(long[] fingerprints, long[] timestampsMillis, CompletableFuture<ReplayCache.Result[]> result) {
+            this.fingerprints = fingerprints;
+            this.timestampsMillis = timestampsMillis;
+            this.result = result;
+        }
+    }
+
+    private static final class Connection {
+        private final Socket socket;
+        private final long responseTimeoutNanos;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final Queue<Call> pending = new ConcurrentLinkedQueue<>();
+        private volatile boolean failed;
+
+        private Connection(Socket socket, long responseTimeoutNanos) throws IOException {
+            this.socket = socket;
+            this.responseTimeoutNanos = responseTimeoutNanos;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        private void startReader() {
+            Thread reader = new Thread(this::readResponses, "replay-store-reader");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        private void write(Call call) throws IOException {
+            call.sentNanos = System.nanoTime();
+            // Queued before writing, so the reader finds it however fast the response comes back
+            pending.add(call);
+            out.writeInt(call.fingerprints.length);
+            for (int i = 0; i < call.fingerprints.length; i++) {
+                out.writeLong(call.fingerprints[i]);
+                out.writeLong(call.timestampsMillis[i]);
+            }
+        }
+
+        private void readResponses() {
+            try {
+                while (true) {
+                    int first;
+                    try {
+                        first = in.read();
+                    } catch (SocketTimeoutException e) {
+                        // Nothing arrived for a whole timeout. Idle is fine; an overdue call is not.
+                        // No byte was read, so the stream is still at the start of a response.
+                        Call oldest = pending.peek();
+                        if (oldest != null && System.nanoTime() - oldest.sentNanos >= responseTimeoutNanos) {
+                            throw new IOException("Replay store did not answer in time", e);
+                        }
+                        continue;
+                    }
+                    if (first < 0) {
+                        throw new EOFException("Replay store closed the connection");
+                    }
+                    // Past the first byte a timeout leaves a partial response behind, so it fails the
+                    // connection like any other read error instead of being retried
+                    int count = first << 24 | in.readUnsignedByte() << 16 | in.readUnsignedShort();
+                    ReplayCache.Result[] results = new ReplayCache.Result[count];
+                    for (int i = 0; i < count; i++) {
+                        int ordinal = in.readUnsignedByte();
+                        if (ordinal >= RESULTS.length) {
+                            throw new IOException("Unknown replay store result " + ordinal);
+                        }
+                        results[i] = RESULTS[ordinal];
+                    }
+                    Call call = pending.poll();
+                    if (call == null) {
+                        throw new IOException("Unexpected response from replay store");
+                    }
+                    call.result.complete(results);
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Closes the connection and fails every call still waiting for a response.
+         */
+        private void fail(IOException cause) {
+            failed = true;
+            try {
+                socket.close();
+            } catch (IOException e) {
+                cause.addSuppressed(e);
+            }
+            Call call;
+            while ((call = pending.poll()) != null) {
+                call.result.completeExceptionally(cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package me.dhan.hmacdemo.security;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A minimal replay store server, for running a shared {@link ReplayStore} locally without external
+ * services. It keeps the fingerprints in a {@link LocalReplayStore} and speaks a small binary protocol
+ * over TCP, used by {@link TcpReplayStore}:
+ * <pre>
+ * request:  int count, then count * (long fingerprint, long timestampMillis)
+ * response: int count, then count * byte (ordinal of {@link ReplayCache.Result})
+ * </pre>
+ * A connection may send any number of requests without waiting; responses come back in request order.
+ * Each connection is served by its own thread. This is a reference implementation for development
+ * and tests: it has no authentication, persistence or replication.
+ * <p>
+ * Start it with {@code ./gradlew replayStoreServer}, or run {@link #main} with the port as argument.
+ */
+public final class TcpReplayStoreServer implements Closeable {
+
+    /** Largest number of checks accepted in one request. */
+    static final int MAX_BATCH_SIZE = 65536;
+
+    private final LocalReplayStore store;
+    private final ServerSocket serverSocket;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private volatile boolean running;
+
+    /**
+     * Binds the server; call {@link #start()} to accept connections.
+     *
+     * @param port  Port to listen on, or 0 for any free port
+     * @param cache Cache holding the recorded fingerprints
+     */
+    public TcpReplayStoreServer(int port, ReplayCache cache) throws IOException {
+        this.store = new LocalReplayStore(cache);
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(port));
+    }
+
+    /**
+     * Returns the port the server listens on.
+     */
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Starts accepting connections on a background thread.
+     */
+    public void start() {
+        running = true;
+        Thread acceptor = new Thread(this::acceptConnections, "replay-store-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void acceptConnections() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                Thread handler = new Thread(() -> serve(socket), "replay-store-connection");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Replay store server failed to accept a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            while (true) {
+                int count = in.readInt();
+                if (count < 0 || count > MAX_BATCH_SIZE) {
+                    // Not a client speaking this protocol
+                    return;
+                }
+                long[] fingerprints = new long[count];
+                long[] timestamps = new long[count];
+                for (int i = 0; i < count; i++) {
+                    fingerprints[i] = in.readLong();
+                    timestamps[i] = in.readLong();
+                }
+                ReplayCache.Result[] results = store.checkAndRecordNow(fingerprints, timestamps);
+                out.writeInt(count);
+                for (ReplayCache.Result result : results) {
+                    out.writeByte(result.ordinal());
+                }
+                // Answer as soon as no further request is already buffered, so pipelined requests share a write
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (EOFException e) {
+            // Client closed the connection
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("Replay store connection failed: " + e.getMessage());
+            }
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Socket socket : connections) {
+            socket.close();
+        }
+    }
+
+    /**
+     * Runs a server until the process is stopped.
+     *
+     * @param args Optional port (default 7070), bucket width in seconds (default 10) and
+     *             maximum entries per bucket (default 65536)
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        Duration bucketWidth = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 10);
+        int maxEntriesPerBucket = args.length > 2 ? Integer.parseInt(args[2]) : 65536;
+
+        TcpReplayStoreServer server = new TcpReplayStoreServer(port,
+                new ReplayCache(HmacHeaders.REPLAY_WINDOW, bucketWidth, maxEntriesPerBucket));
+        server.start();
+        System.out.println("Replay store listening on port " + server.port());
+        Thread.currentThread().join();
+    }
+}
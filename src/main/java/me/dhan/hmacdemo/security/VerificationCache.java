@@ -0,0 +1,115 @@
+package me.dhan.hmacdemo.security;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Remembers idempotent requests whose signature has already been verified, so that polling
+ * clients repeating the exact same signed request do not pay for the MAC computation again.
+ * <p>
+ * Entries are keyed by everything the signature covers plus the signature itself, so a hit means
+ * the very same bytes were verified before with the same keys. An entry also records which
+ * {@link HmacKeyCache.ResolvedKeys} verified it and only counts as a hit for that instance; once the
+ * key cache reloads a client's keys, e.g. after a rotation or revocation, older entries are ignored.
+ * Entries expire with the request timestamp's validity window, and the number of entries is bounded:
+ * entries are dropped in the order they were added, which is close to the order in which they expire.
+ * Optionally the response produced for the request is stored as well.
+ */
+final class VerificationCache {
+
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Insertion> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param maxEntries Maximum number of cached requests
+     */
+    VerificationCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Builds the cache key of a request from everything its signature covers and the signature.
+     */
+    static String key(String keyId, String method, String uri, String canonicalQuery, String timestamp,
+                      String signature) {
+        return keyId + '\n' + method + '\n' + uri + '\n' + (canonicalQuery != null ? canonicalQuery : "")
+                + '\n' + timestamp + '\n' + signature;
+    }
+
+    /**
+     * Returns the cached verification of a request, or null if it is unknown, expired, or was
+     * verified with keys that are no longer current.
+     */
+    Entry get(String key, HmacKeyCache.ResolvedKeys keys, long nowMillis) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis <= nowMillis || entry.keys != keys) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Records a verified request.
+     *
+     * @param expiresAtMillis End of the request timestamp's validity window
+     */
+    void put(String key, HmacKeyCache.ResolvedKeys keys, byte[] mac, long expiresAtMillis, long nowMillis) {
+        evict(nowMillis);
+        entries.put(key, new Entry(keys, mac, expiresAtMillis, null));
+        insertionOrder.add(new Insertion(key, expiresAtMillis));
+    }
+
+    /**
+     * Attaches the response produced for a verified request, if the request is still cached.
+     */
+    void putResponse(String key, CachedResponse response) {
+        entries.computeIfPresent(key, (k, entry) -> new Entry(entry.keys, entry.mac, entry.expiresAtMillis, response));
+    }
+
+    /**
+     * Removes the oldest entries while they are expired or the cache is full. Each step looks at the
+     * head of the insertion queue only, so a put never scans the cache.
+     */
+    private void evict(long nowMillis) {
+        Insertion oldest;
+        while ((oldest = insertionOrder.peek()) != null
+                && (oldest.expiresAtMillis <= nowMillis || entries.size() >= maxEntries)) {
+            Insertion evicted = insertionOrder.poll();
+            if (evicted != null) {
+                // Leave a newer entry stored under the same key alone
+                entries.computeIfPresent(evicted.key,
+                        (key, entry) -> entry.expiresAtMillis == evicted.expiresAtMillis ? null : entry);
+            }
+        }
+    }
+
+    /**
+     * A key in the order entries were added, with its expiry to recognize the entry it was added for.
+     */
+    private record Insertion(String key, long expiresAtMillis) {
+    }
+
+    /**
+     * A verified request.
+     *
+     * @param keys            The keys the request was verified with
+     * @param mac             The verified MAC, used for the replay check
+     * @param expiresAtMillis When the request timestamp leaves the validity window
+     * @param response        The stored response, or null
+     */
+    record Entry(HmacKeyCache.ResolvedKeys keys, byte[] mac, long expiresAtMillis, CachedResponse response) {
+    }
+
+    /**
+     * A response stored for a verified request.
+     */
+    record CachedResponse(int status, String contentType, byte[] body) {
+    }
+}
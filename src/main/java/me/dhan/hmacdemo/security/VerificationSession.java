@@ -0,0 +1,219 @@
+package me.dhan.hmacdemo.security;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Computes the signature of one incoming request with a client's keys.
+ * <p>
+ * During a key rotation the body is fed to one session per secret as it streams in, so accepting
+ * either secret costs exactly one extra MAC computation and the body is still read only once.
+ * <p>
+ * With the body-digest scheme (version 2) the signature covers the client's SHA-256 body digest
+ * instead of the body. The signed envelope is then complete as soon as the session is created, so
+ * it can be {@link #verify verified} before the body is read; the body itself is only hashed, and
+ * {@link #bodyMatchesDigest()} compares that hash with the signed digest once the body is complete.
+ * <p>
+ * The client's signature is decoded once into a buffer of the pooled signer session and compared with
+ * the computed MAC in constant time, so verification allocates neither strings nor MAC arrays.
+ * The time spent in MAC and digest computation is accumulated for metrics.
+ * <p>
+ * Sessions are not thread-safe; the servlet and the reactive filter each feed one session from one
+ * request at a time.
+ */
+public final class VerificationSession implements AutoCloseable {
+
+    static final String BODY_DIGEST_ALGORITHM = "SHA-256";
+
+    private final HmacSigner.Session current;
+    private final HmacSigner.Session previous;
+    private final String keyId;
+    private final MacAlgorithm algorithm;
+    private final MessageDigest bodyDigest;
+    private final byte[] expectedBodyDigest;
+    private byte[] verifiedMac;
+    private boolean finished;
+    private long macNanos;
+
+    /**
+     * @param bodyDigestHeader Base64 SHA-256 body digest sent by the client for the body-digest scheme,
+     *                         or null when the body itself is signed
+     */
+    public VerificationSession(HmacKeyCache.ResolvedKeys keys, String method, String uri, String queryString,
+                               String bodyDigestHeader) {
+        this.keyId = keys.keyId();
+        this.algorithm = keys.algorithm();
+        if (bodyDigestHeader != null) {
+            // The digest takes the place of the body in the canonical message
+            this.current = keys.current().beginDigest(method, uri, queryString, bodyDigestHeader);
+            this.previous = keys.previous() != null
+                    ? keys.previous().beginDigest(method, uri, queryString, bodyDigestHeader) : null;
+            this.bodyDigest = newBodyDigest();
+            this.expectedBodyDigest = Base64.getDecoder().decode(bodyDigestHeader);
+        } else {
+            this.current = keys.current().begin(method, uri, queryString);
+            this.previous = keys.previous() != null ? keys.previous().begin(method, uri, queryString) : null;
+            this.bodyDigest = null;
+            this.expectedBodyDigest = null;
+        }
+    }
+
+    /**
+     * Returns whether the signature covers a body digest rather than the body.
+     */
+    public boolean isDigestScheme() {
+        return bodyDigest != null;
+    }
+
+    /**
+     * Feeds a chunk of the request body into the signature, or into the body digest.
+     */
+    public void update(byte[] chunk, int offset, int length) {
+        long start = System.nanoTime();
+        if (bodyDigest != null) {
+            bodyDigest.update(chunk, offset, length);
+        } else {
+            current.update(chunk, offset, length);
+            if (previous != null) {
+                previous.update(chunk, offset, length);
+            }
+        }
+        macNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Completes the signature and compares it with the one sent by the client.
+     * The result is kept, so calling this again returns the same outcome.
+     *
+     * @param timestamp       Request timestamp from the timestamp header
+     * @param signatureHeader Base64 signature from the signature header
+     * @return The matching MAC, or null if no key produces the client's signature. The array belongs
+     *         to the session and is only valid until it is closed; copy it to keep it longer.
+     */
+    public byte[] verify(String timestamp, String signatureHeader) {
+        if (finished) {
+            return verifiedMac;
+        }
+        long start = System.nanoTime();
+        try {
+            finished = true;
+            byte[] expected = current.signatureBuffer();
+            if (!decodeSignature(signatureHeader, expected)) {
+                return null;
+            }
+            if (current.finishAndVerify(timestamp, expected)) {
+                verifiedMac = current.computed();
+            } else if (previous != null && previous.finishAndVerify(timestamp, expected)) {
+                verifiedMac = previous.computed();
+            }
+            return verifiedMac;
+        } finally {
+            macNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Checks the body read so far against the signed body digest.
+     * Always true when the body itself is signed.
+     */
+    public boolean bodyMatchesDigest() {
+        if (bodyDigest == null) {
+            return true;
+        }
+        long start = System.nanoTime();
+        boolean matches = MessageDigest.isEqual(bodyDigest.digest(), expectedBodyDigest);
+        macNanos += System.nanoTime() - start;
+        return matches;
+    }
+
+    /**
+     * Returns the key id the request is verified against.
+     */
+    public String keyId() {
+        return keyId;
+    }
+
+    /**
+     * Returns the MAC algorithm the request is verified with.
+     */
+    public MacAlgorithm algorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the total time spent in MAC and digest computation so far.
+     */
+    public long macNanos() {
+        return macNanos;
+    }
+
+    @Override
+    public void close() {
+        current.close();
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Decodes a padded Base64 signature into a buffer of exactly the signature's length.
+     *
+     * @return false if the signature is not valid Base64 or does not decode to the buffer's length
+     */
+    static boolean decodeSignature(String signature, byte[] output) {
+        int length = signature.length();
+        if (length != 4 * ((output.length + 2) / 3)) {
+            return false;
+        }
+        int padding = (3 - output.length % 3) % 3;
+        int bits = 0;
+        int bitCount = 0;
+        int position = 0;
+        for (int i = 0; i < length; i++) {
+            char c = signature.charAt(i);
+            if (i >= length - padding) {
+                if (c != '=') {
+                    return false;
+                }
+                continue;
+            }
+            int value = base64Value(c);
+            if (value < 0) {
+                return false;
+            }
+            bits = bits << 6 | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                output[position++] = (byte) (bits >> bitCount);
+            }
+        }
+        // Leftover bits of the last character must be zero in the canonical encoding
+        return (bits & ((1 << bitCount) - 1)) == 0;
+    }
+
+    private static int base64Value(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 26;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 52;
+        }
+        if (c == '+') {
+            return 62;
+        }
+        return c == '/' ? 63 : -1;
+    }
+
+    private static MessageDigest newBodyDigest() {
+        try {
+            return MessageDigest.getInstance(BODY_DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Error initializing body digest", e);
+        }
+    }
+}
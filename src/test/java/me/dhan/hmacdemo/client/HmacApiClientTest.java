@@ -0,0 +1,72 @@
+package me.dhan.hmacdemo.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class HmacApiClientTest {
+
+    private static final String SECRET = "secret";
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Test
+    public void testInFlightPermitIsReleasedOnSuccessAndFailure() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/demo/sum", exchange -> {
+            // Every other request fails on the server
+            byte[] body = "3".getBytes(StandardCharsets.US_ASCII);
+            exchange.sendResponseHeaders(requests.getAndIncrement() % 2 == 0 ? 200 : 500, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        // With a single permit, a call that kept it would leave the next one waiting forever
+        try (HmacApiClient client = newClient("http://localhost:" + server.getAddress().getPort())) {
+            assertTimeoutPreemptively(TIMEOUT, () -> {
+                for (int i = 0; i < 3; i++) {
+                    assertEquals(3, client.sumAsync(1, 2).get(5, TimeUnit.SECONDS));
+                    assertThrows(ExecutionException.class, () -> client.sumAsync(1, 2).get(5, TimeUnit.SECONDS));
+                }
+            });
+        } finally {
+            server.stop(0);
+        }
+
+        try (HmacApiClient unreachable = newClient("http://localhost:" + closedPort())) {
+            assertTimeoutPreemptively(TIMEOUT, () -> {
+                for (int i = 0; i < 3; i++) {
+                    ExecutionException error = assertThrows(ExecutionException.class,
+                            () -> unreachable.sumAsync(1, 2).get(5, TimeUnit.SECONDS));
+                    assertInstanceOf(IOException.class, error.getCause());
+                }
+            });
+        }
+    }
+
+    private static HmacApiClient newClient(String baseUrl) {
+        return HmacApiClient.builder(baseUrl, SECRET)
+                .maxInFlight(1)
+                .printCurlCommands(false)
+                .build();
+    }
+
+    private static int closedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
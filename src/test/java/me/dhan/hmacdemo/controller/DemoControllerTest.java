@@ -114,6 +114,40 @@ public class DemoControllerTest {
                 .andExpect(status().isUnauthorized());
     }
 
+    @Test
+    public void testSumWithUnknownKeyId() throws Exception {
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        mockMvc.perform(get("/api/demo/sum")
+                .param("a", "5")
+                .param("b", "3")
+                .header("X-KEY-ID", "unknown-client")
+                .header(TIMESTAMP_HEADER_NAME, timestamp)
+                .header(HMAC_HEADER_NAME, calculateHmac("GET", "/api/demo/sum", "a=5&b=3", timestamp)))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void testSumReplayRejected() throws Exception {
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        String hmac = calculateHmac("GET", "/api/demo/sum", "a=11&b=12", timestamp);
+
+        mockMvc.perform(get("/api/demo/sum")
+                .param("a", "11")
+                .param("b", "12")
+                .header(TIMESTAMP_HEADER_NAME, timestamp)
+                .header(HMAC_HEADER_NAME, hmac))
+                .andExpect(status().isOk())
+                .andExpect(content().string("23"));
+
+        // The same signed request sent again within the validity window is a replay
+        mockMvc.perform(get("/api/demo/sum")
+                .param("a", "11")
+                .param("b", "12")
+                .header(TIMESTAMP_HEADER_NAME, timestamp)
+                .header(HMAC_HEADER_NAME, hmac))
+                .andExpect(status().isUnauthorized());
+    }
+
     private String calculateHmac(String method, String uri, String queryString, String timestamp) {
         return calculateHmac(method, uri, queryString, timestamp, null);
     }
@@ -261,4 +295,45 @@ public class DemoControllerTest {
                 .header(HMAC_HEADER_NAME, calculateHmac("POST", "/api/demo/sum", queryString, expiredTimestamp, requestJson)))
                 .andExpect(status().isUnauthorized());
     }
+
+    @Test
+    public void testSumBatch() throws Exception {
+        String uri = "/api/demo/sum/batch";
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        String requestJson = "[{\"a\":5,\"b\":3},{\"a\":-2,\"b\":7},{\"a\":0,\"b\":0}]";
+
+        mockMvc.perform(post(uri)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestJson)
+                .header(TIMESTAMP_HEADER_NAME, timestamp)
+                .header(HMAC_HEADER_NAME, calculateHmac("POST", uri, "", timestamp, requestJson)))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[8,5,0]"));
+
+        // The same pairs streamed as NDJSON, one pair per line
+        timestamp = String.valueOf(System.currentTimeMillis());
+        String requestNdjson = "{\"a\":5,\"b\":3}\n{\"a\":-2,\"b\":7}\n{\"a\":0,\"b\":0}\n";
+
+        mockMvc.perform(post(uri)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(requestNdjson)
+                .header(TIMESTAMP_HEADER_NAME, timestamp)
+                .header(HMAC_HEADER_NAME, calculateHmac("POST", uri, "", timestamp, requestNdjson)))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[8,5,0]"));
+    }
+
+    @Test
+    public void testSumBatchWithInvalidBody() throws Exception {
+        String uri = "/api/demo/sum/batch";
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        String requestJson = "[{\"a\":5,\"b\":3},42]";
+
+        mockMvc.perform(post(uri)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestJson)
+                .header(TIMESTAMP_HEADER_NAME, timestamp)
+                .header(HMAC_HEADER_NAME, calculateHmac("POST", uri, "", timestamp, requestJson)))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,41 @@
+package me.dhan.hmacdemo.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class CanonicalQueryTest {
+
+    @Test
+    public void testCanonicalQueryIsReturnedAsIs() {
+        String query = "a=5&b=-3&c=x%20y";
+        assertSame(query, CanonicalQuery.canonicalize(query));
+        assertNull(CanonicalQuery.canonicalize(null));
+        assertEquals("", CanonicalQuery.canonicalize(""));
+    }
+
+    @Test
+    public void testSortsAndEncodesConsistently() {
+        assertEquals("a=5&b=3", CanonicalQuery.canonicalize("b=3&a=5"));
+        assertEquals("q=x%20y%2Bz", CanonicalQuery.canonicalize("q=x+y%2bz"));
+        assertEquals("name=Vi%E1%BB%87t", CanonicalQuery.canonicalize("name=Việt"));
+        assertEquals("a=A&flag=", CanonicalQuery.canonicalize("flag&&a=%41"));
+        assertEquals("k=2&k=1&z=%25", CanonicalQuery.canonicalize("z=%&k=2&k=1"));
+    }
+
+    @Test
+    public void testParameterMapMatchesRawQuery() {
+        Map<String, String[]> parameters = new LinkedHashMap<>();
+        parameters.put("q", new String[]{"x y+z"});
+        parameters.put("name", new String[]{"Việt"});
+        parameters.put("a", new String[]{"5", "6"});
+
+        assertEquals(CanonicalQuery.canonicalize("a=5&a=6&name=Vi%E1%BB%87t&q=x+y%2Bz"),
+                CanonicalQuery.fromParameters(parameters));
+    }
+}
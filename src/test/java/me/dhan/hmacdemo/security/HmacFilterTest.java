@@ -0,0 +1,475 @@
+package me.dhan.hmacdemo.security;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.DelegatingServletInputStream;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HmacFilterTest {
+
+    private static final String SECRET = "secret";
+    private static final String URI = "/api/demo/sum";
+
+    private HmacFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        HmacKeyCache keyCache = new HmacKeyCache(
+                new InMemoryHmacKeyProvider(Map.of("default", SECRET)), Duration.ofMinutes(5), 10);
+        filter = new HmacFilter(keyCache, HmacMetrics.noop());
+        ReflectionTestUtils.setField(filter, "defaultKeyId", "default");
+        ReflectionTestUtils.setField(filter, "maxBodySize", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(filter, "spillThreshold", DataSize.ofKilobytes(64));
+        ReflectionTestUtils.setField(filter, "spillDirectory", "");
+    }
+
+    @Test
+    public void testHeaderChecksRunBeforeBodyIsRead() throws Exception {
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        String expired = String.valueOf(System.currentTimeMillis() - Duration.ofMinutes(10).toMillis());
+        String signature = HmacUtils.generateHmacSignature("POST", URI, "", timestamp, "{}", SECRET);
+
+        assertRejectedUnread(null, signature, null, "Missing timestamp header");
+        assertRejectedUnread(expired, signature, null, "Expired or invalid timestamp");
+        assertRejectedUnread(timestamp, null, null, "Missing HMAC signature header");
+        assertRejectedUnread(timestamp, signature, "unknown-client", "Unknown key id");
+        assertRejectedUnread(timestamp, "invalidSignature", null, "Malformed HMAC signature");
+        assertRejectedUnread(timestamp, signature.substring(4), null, "Malformed HMAC signature");
+    }
+
+    @Test
+    public void testDigestSchemeChecksEnvelopeBeforeBody() throws Exception {
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        String digest = HmacUtils.computeBodyDigest("{}".getBytes(StandardCharsets.UTF_8));
+        String wrongKeySignature = HmacUtils.generateDigestSignature("POST", URI, "", timestamp, digest, "other");
+
+        UnreadableBodyRequest request = new UnreadableBodyRequest();
+        request.addHeader("X-TIMESTAMP", timestamp);
+        request.addHeader("X-HMAC-SIGNATURE", wrongKeySignature);
+        request.addHeader("X-HMAC-VERSION", "2");
+        request.addHeader("X-CONTENT-SHA256", digest);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(401, response.getStatus());
+        assertEquals("Invalid HMAC signature", response.getContentAsString());
+        assertFalse(request.bodyRead);
+    }
+
+    @Test
+    public void testDigestSchemeVerifiesBody() throws Exception {
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        String digest = HmacUtils.computeBodyDigest("{}".getBytes(StandardCharsets.UTF_8));
+        String signature = HmacUtils.generateDigestSignature("POST", URI, "", timestamp, digest, SECRET);
+
+        MockHttpServletResponse accepted = sendWithDigest("{}", timestamp, signature, digest);
+        assertEquals(200, accepted.getStatus());
+
+        MockHttpServletResponse tampered = sendWithDigest("{\"a\":1}", timestamp, signature, digest);
+        assertEquals(401, tampered.getStatus());
+        assertEquals("Body does not match digest", tampered.getContentAsString());
+    }
+
+    @Test
+    public void testAlgorithmIsCheckedAgainstKeyPolicy() throws Exception {
+        InMemoryHmacKeyProvider provider = new InMemoryHmacKeyProvider();
+        provider.put("uploads", SECRET, List.of(MacAlgorithm.HMAC_SHA512, MacAlgorithm.HMAC_SHA256));
+        provider.put("billing", SECRET);
+        filter = new HmacFilter(new HmacKeyCache(provider, Duration.ofMinutes(5), 10), HmacMetrics.noop());
+        ReflectionTestUtils.setField(filter, "maxBodySize", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(filter, "spillThreshold", DataSize.ofKilobytes(64));
+        ReflectionTestUtils.setField(filter, "spillDirectory", "");
+
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        String signature = HmacUtils.generateHmacSignature("POST", URI, "", timestamp, "{}", SECRET,
+                MacAlgorithm.HMAC_SHA512);
+
+        MockHttpServletRequest allowed = new MockHttpServletRequest("POST", URI);
+        allowed.setContent("{}".getBytes(StandardCharsets.UTF_8));
+        allowed.addHeader("X-KEY-ID", "uploads");
+        allowed.addHeader("X-HMAC-ALGORITHM", "HMAC-SHA512");
+        MockHttpServletResponse accepted = new MockHttpServletResponse();
+        filter.doFilter(sign(allowed, timestamp, signature), accepted, new MockFilterChain());
+        assertEquals(200, accepted.getStatus());
+
+        // A client limited to SHA-256 is rejected before its body is read, even with a valid SHA-512 signature
+        UnreadableBodyRequest limited = new UnreadableBodyRequest();
+        limited.addHeader("X-KEY-ID", "billing");
+        limited.addHeader("X-HMAC-ALGORITHM", "HMAC-SHA512");
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(sign(limited, timestamp, signature), rejected, new MockFilterChain());
+        assertEquals(401, rejected.getStatus());
+        assertEquals("HMAC algorithm not allowed for this key", rejected.getContentAsString());
+        assertFalse(limited.bodyRead);
+    }
+
+    @Test
+    public void testRepeatedGetIsServedFromVerificationCache() throws Exception {
+        ReflectionTestUtils.setField(filter, "replayProtectionEnabled", true);
+        ReflectionTestUtils.setField(filter, "replayBucketWidth", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(filter, "replayMaxEntriesPerBucket", 100);
+        ReflectionTestUtils.setField(filter, "replaySkipSafeMethods", true);
+        ReflectionTestUtils.setField(filter, "verificationCacheEnabled", true);
+        ReflectionTestUtils.setField(filter, "verificationCacheMaxEntries", 10);
+        ReflectionTestUtils.setField(filter, "cacheResponses", true);
+        ReflectionTestUtils.setField(filter, "maxCachedResponseSize", DataSize.ofKilobytes(64));
+        ReflectionTestUtils.invokeMethod(filter, "initReplayCache");
+
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        String signature = HmacUtils.generateHmacSignature("GET", "/api/demo/info", "a=1&b=2", timestamp, SECRET);
+        int[] handled = new int[1];
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/demo/info");
+            request.setQueryString("b=2&a=1");
+            request.addHeader("X-TIMESTAMP", timestamp);
+            request.addHeader("X-HMAC-SIGNATURE", signature);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            filter.doFilter(request, response, (req, res) -> {
+                handled[0]++;
+                res.setContentType("text/plain");
+                res.getWriter().write("info");
+            });
+
+            assertEquals(200, response.getStatus());
+            assertEquals("info", response.getContentAsString());
+        }
+        assertEquals(1, handled[0]);
+    }
+
+    @Test
+    public void testRepeatedFailuresAreThrottledBeforeBodyIsRead() throws Exception {
+        ReflectionTestUtils.setField(filter, "rateLimitEnabled", true);
+        ReflectionTestUtils.setField(filter, "rateLimitTableSize", 64);
+        ReflectionTestUtils.setField(filter, "keyIdPermitsPerSecond", 100.0);
+        ReflectionTestUtils.setField(filter, "keyIdBurst", 100);
+        ReflectionTestUtils.setField(filter, "remoteAddressPermitsPerSecond", 100.0);
+        ReflectionTestUtils.setField(filter, "remoteAddressBurst", 100);
+        ReflectionTestUtils.setField(filter, "failurePermitsPerSecond", 0.01);
+        ReflectionTestUtils.setField(filter, "failureBurst", 2);
+        ReflectionTestUtils.invokeMethod(filter, "initReplayCache");
+
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        assertRejectedUnread(timestamp, "invalidSignature", null, "Malformed HMAC signature");
+        assertRejectedUnread(timestamp, "invalidSignature", null, "Malformed HMAC signature");
+
+        UnreadableBodyRequest request = new UnreadableBodyRequest();
+        request.addHeader("X-TIMESTAMP", timestamp);
+        request.addHeader("X-HMAC-SIGNATURE", HmacUtils.generateHmacSignature("POST", URI, "", timestamp, "{}", SECRET));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(429, response.getStatus());
+        assertEquals("Too many failed verifications", response.getContentAsString());
+        assertEquals("100", response.getHeader("Retry-After"));
+        assertFalse(request.bodyRead);
+    }
+
+    @Test
+    public void testForgedKeyIdDoesNotUseUpClientBudget() throws Exception {
+        ReflectionTestUtils.setField(filter, "rateLimitEnabled", true);
+        ReflectionTestUtils.setField(filter, "rateLimitTableSize", 64);
+        ReflectionTestUtils.setField(filter, "keyIdPermitsPerSecond", 0.01);
+        ReflectionTestUtils.setField(filter, "keyIdBurst", 1);
+        ReflectionTestUtils.setField(filter, "remoteAddressPermitsPerSecond", 100.0);
+        ReflectionTestUtils.setField(filter, "remoteAddressBurst", 100);
+        ReflectionTestUtils.setField(filter, "failurePermitsPerSecond", 100.0);
+        ReflectionTestUtils.setField(filter, "failureBurst", 100);
+        ReflectionTestUtils.invokeMethod(filter, "initReplayCache");
+
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        for (int i = 0; i < 3; i++) {
+            assertRejectedUnread(timestamp, "invalidSignature", "default", "Malformed HMAC signature");
+        }
+
+        MockHttpServletResponse accepted = post(timestamp, "{\"a\":1}");
+        assertEquals(200, accepted.getStatus());
+        // The verified client's own requests do use up its budget
+        MockHttpServletResponse throttled = post(timestamp, "{\"a\":2}");
+        assertEquals(429, throttled.getStatus());
+        assertEquals("Too many requests", throttled.getContentAsString());
+    }
+
+    @Test
+    public void testRejectionBodiesAreSentWithLength() throws Exception {
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", URI);
+        request.addHeader("X-TIMESTAMP", timestamp);
+        request.addHeader("X-HMAC-SIGNATURE", "invalidSignature");
+
+        MockHttpServletResponse text = new MockHttpServletResponse();
+        filter.doFilter(request, text, new MockFilterChain());
+        assertEquals("Malformed HMAC signature", text.getContentAsString());
+        assertEquals("Malformed HMAC signature".length(), text.getContentLength());
+        assertEquals("text/plain;charset=UTF-8", text.getContentType());
+
+        ReflectionTestUtils.setField(filter, "rejectionFormat", RejectionFormat.JSON);
+        MockHttpServletResponse json = new MockHttpServletResponse();
+        filter.doFilter(request, json, new MockFilterChain());
+        String expected = "{\"status\":401,\"error\":\"malformed-signature\",\"message\":\"Malformed HMAC signature\"}";
+        assertEquals(expected, json.getContentAsString());
+        assertEquals(expected.length(), json.getContentLength());
+        assertEquals("application/json", json.getContentType());
+    }
+
+    @Test
+    public void testRoutePoliciesApply() throws Exception {
+        HmacKeyCache keyCache = new HmacKeyCache(
+                new InMemoryHmacKeyProvider(Map.of("default", SECRET)), Duration.ofMinutes(5), 10);
+        filter = new HmacFilter(keyCache, HmacMetrics.noop(), null, RouteMatcher.compile(List.of(
+                new RouteMatcher.Route("/actuator/health/**", new RoutePolicy(true, false, null, null)),
+                new RouteMatcher.Route(URI, new RoutePolicy(false, true, null, null)))));
+        ReflectionTestUtils.setField(filter, "defaultKeyId", "default");
+        ReflectionTestUtils.setField(filter, "maxBodySize", DataSize.ofMegabytes(1));
+
+        MockHttpServletResponse health = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health/readiness"), health, new MockFilterChain());
+        assertEquals(200, health.getStatus());
+
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        UnreadableBodyRequest request = new UnreadableBodyRequest();
+        request.addHeader("X-TIMESTAMP", timestamp);
+        request.addHeader("X-HMAC-SIGNATURE", HmacUtils.generateHmacSignature("POST", URI, "", timestamp, "{}", SECRET));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        assertEquals(400, response.getStatus());
+        assertEquals("Body digest signing required for this route", response.getContentAsString());
+        assertFalse(request.bodyRead);
+    }
+
+    @Test
+    public void testBodyReadErrorIsRejected() throws Exception {
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", URI) {
+            @Override
+            public ServletInputStream getInputStream() {
+                return new DelegatingServletInputStream(InputStream.nullInputStream()) {
+                    @Override
+                    public int read(byte[] buffer) throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+
+                    @Override
+                    public int read(byte[] buffer, int offset, int length) throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+                };
+            }
+        };
+        request.addHeader("X-TIMESTAMP", timestamp);
+        request.addHeader("X-HMAC-SIGNATURE", HmacUtils.generateHmacSignature("POST", URI, "", timestamp, "{}", SECRET));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(400, response.getStatus());
+        assertEquals("Request body could not be read", response.getContentAsString());
+    }
+
+    @Test
+    public void testAsyncBodyIsVerifiedBeforeDispatch() throws Exception {
+        enableAsync();
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        String signature = HmacUtils.generateHmacSignature("POST", URI, "", timestamp, "{\"a\":1}", SECRET);
+
+        AsyncBodyRequest accepted = new AsyncBodyRequest("{\"a\":1}", false, null);
+        filter.doFilter(sign(accepted, timestamp, signature), accepted.response, new MockFilterChain());
+        assertTrue(accepted.isAsyncStarted());
+        assertEquals(URI, ((MockAsyncContext) accepted.getAsyncContext()).getDispatchedPath());
+
+        // The container dispatches again, and the controller sees the body that was verified
+        accepted.setDispatcherType(DispatcherType.ASYNC);
+        String[] received = new String[1];
+        filter.doFilter(accepted, accepted.response, (req, res) ->
+                received[0] = new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals("{\"a\":1}", received[0]);
+        assertEquals(200, accepted.response.getStatus());
+
+        AsyncBodyRequest tampered = new AsyncBodyRequest("{\"a\":2}", false, null);
+        filter.doFilter(sign(tampered, timestamp, signature), tampered.response, new MockFilterChain());
+        assertEquals(401, tampered.response.getStatus());
+        assertEquals("Invalid HMAC signature", tampered.response.getContentAsString());
+        assertFalse(tampered.isAsyncStarted());
+    }
+
+    @Test
+    public void testAsyncBodyOverLimitIsRejected() throws Exception {
+        enableAsync();
+        ReflectionTestUtils.setField(filter, "maxBodySize", DataSize.ofBytes(16));
+        String body = "{\"a\":1,\"b\":2,\"c\":3,\"d\":4}";
+        String timestamp = String.valueOf(System.currentTimeMillis());
+
+        // Without a Content-Length the limit can only be enforced while reading
+        AsyncBodyRequest request = new AsyncBodyRequest(body, true, null);
+        filter.doFilter(sign(request, timestamp, HmacUtils.generateHmacSignature("POST", URI, "", timestamp, body,
+                SECRET)), request.response, new MockFilterChain());
+
+        assertEquals(413, request.response.getStatus());
+        assertEquals("Request body too large", request.response.getContentAsString());
+        assertFalse(request.isAsyncStarted());
+    }
+
+    @Test
+    public void testAsyncClientAbortIsRejected() throws Exception {
+        enableAsync();
+        String timestamp = String.valueOf(System.currentTimeMillis());
+
+        AsyncBodyRequest request = new AsyncBodyRequest("{}", false, new IOException("Connection reset"));
+        filter.doFilter(sign(request, timestamp, HmacUtils.generateHmacSignature("POST", URI, "", timestamp, "{}",
+                SECRET)), request.response, new MockFilterChain());
+
+        assertEquals(400, request.response.getStatus());
+        assertEquals("Request body could not be read", request.response.getContentAsString());
+        assertFalse(request.isAsyncStarted());
+    }
+
+    private void enableAsync() {
+        ReflectionTestUtils.setField(filter, "asyncEnabled", true);
+        ReflectionTestUtils.setField(filter, "asyncTimeout", Duration.ofSeconds(30));
+    }
+
+    private static MockHttpServletRequest sign(MockHttpServletRequest request, String timestamp, String signature) {
+        request.addHeader("X-TIMESTAMP", timestamp);
+        request.addHeader("X-HMAC-SIGNATURE", signature);
+        return request;
+    }
+
+    private MockHttpServletResponse sendWithDigest(String body, String timestamp, String signature, String digest)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", URI);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        request.addHeader("X-TIMESTAMP", timestamp);
+        request.addHeader("X-HMAC-SIGNATURE", signature);
+        request.addHeader("X-HMAC-VERSION", "2");
+        request.addHeader("X-CONTENT-SHA256", digest);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private MockHttpServletResponse post(String timestamp, String body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", URI);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        request.addHeader("X-TIMESTAMP", timestamp);
+        request.addHeader("X-KEY-ID", "default");
+        request.addHeader("X-HMAC-SIGNATURE", HmacUtils.generateHmacSignature("POST", URI, "", timestamp, body, SECRET));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private void assertRejectedUnread(String timestamp, String signature, String keyId, String message)
+            throws Exception {
+        UnreadableBodyRequest request = new UnreadableBodyRequest();
+        if (timestamp != null) {
+            request.addHeader("X-TIMESTAMP", timestamp);
+        }
+        if (signature != null) {
+            request.addHeader("X-HMAC-SIGNATURE", signature);
+        }
+        if (keyId != null) {
+            request.addHeader("X-KEY-ID", keyId);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(401, response.getStatus());
+        assertEquals(message, response.getContentAsString());
+        assertFalse(request.bodyRead);
+    }
+
+    /**
+     * An async-capable request whose body is delivered to a {@link ReadListener} as soon as one is set,
+     * or that fails the read as a client abort would.
+     */
+    private static class AsyncBodyRequest extends MockHttpServletRequest {
+        private final MockHttpServletResponse response = new MockHttpServletResponse();
+        private final boolean chunked;
+        private final IOException readError;
+
+        AsyncBodyRequest(String body, boolean chunked, IOException readError) {
+            super("POST", URI);
+            setContent(body.getBytes(StandardCharsets.UTF_8));
+            setAsyncSupported(true);
+            this.chunked = chunked;
+            this.readError = readError;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return chunked ? -1 : super.getContentLengthLong();
+        }
+
+        @Override
+        public AsyncContext startAsync() {
+            // Like a container, and unlike the mock, keep the original response
+            return startAsync(this, response);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return new DelegatingServletInputStream(new ByteArrayInputStream(getContentAsByteArray())) {
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    if (readError != null) {
+                        readListener.onError(readError);
+                        return;
+                    }
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * A request that records whether the filter touched its body.
+     */
+    private static class UnreadableBodyRequest extends MockHttpServletRequest {
+        private boolean bodyRead;
+
+        UnreadableBodyRequest() {
+            super("POST", URI);
+            setContent("{}".getBytes());
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            bodyRead = true;
+            return super.getInputStream();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package me.dhan.hmacdemo.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class HmacKeyCacheTest {
+
+    @Test
+    public void testCacheHitDoesNotReachProvider() {
+        InMemoryHmacKeyProvider keys = new InMemoryHmacKeyProvider(Map.of("billing", "secret"));
+        AtomicInteger lookups = new AtomicInteger();
+        HmacKeyProvider provider = keyId -> {
+            lookups.incrementAndGet();
+            return keys.findKeys(keyId);
+        };
+        HmacKeyCache cache = new HmacKeyCache(provider, Duration.ofMinutes(5), 10);
+
+        HmacKeyCache.ResolvedKeys first = cache.resolve("billing");
+        assertSame(first, cache.resolve("billing"));
+        assertNull(cache.resolve("unknown"));
+        assertNull(cache.resolve("unknown"));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void testUnknownKeyIdsDoNotEvictClients() {
+        InMemoryHmacKeyProvider provider = new InMemoryHmacKeyProvider(
+                Map.of("billing", "secret", "reports", "secret", "uploads", "secret"));
+        HmacKeyCache cache = new HmacKeyCache(provider, Duration.ofMinutes(5), 2);
+
+        HmacKeyCache.ResolvedKeys billing = cache.resolve("billing");
+        for (int i = 0; i < 5000; i++) {
+            assertNull(cache.resolve("made-up-" + i));
+        }
+        assertSame(billing, cache.resolve("billing"));
+
+        // The client loaded longest ago makes room for a new one
+        HmacKeyCache.ResolvedKeys reports = cache.resolve("reports");
+        cache.resolve("uploads");
+        assertSame(reports, cache.resolve("reports"));
+        assertNotSame(billing, cache.resolve("billing"));
+    }
+
+    @Test
+    public void testRotationKeepsPreviousSecret() {
+        InMemoryHmacKeyProvider provider = new InMemoryHmacKeyProvider(Map.of("billing", "old"));
+        provider.rotate("billing", "new");
+        HmacKeyCache cache = new HmacKeyCache(provider, Duration.ofMinutes(5), 10);
+
+        HmacKeyCache.ResolvedKeys keys = cache.resolve("billing");
+        assertNotNull(keys.previous());
+
+        byte[] body = "{}".getBytes();
+        byte[] oldSignature = new HmacSigner("old").sign("POST", "/api/demo/sum", "", "1", body);
+        try (VerificationSession session = new VerificationSession(keys, "POST", "/api/demo/sum", "", null)) {
+            session.update(body, 0, body.length);
+            assertNotNull(session.verify("1", Base64.getEncoder().encodeToString(oldSignature)));
+        }
+
+        provider.retirePrevious("billing");
+        cache.invalidate("billing");
+        assertNull(cache.resolve("billing").previous());
+        assertEquals(Optional.of(new HmacKeys("billing", "new")), provider.findKeys("billing"));
+    }
+
+    @Test
+    public void testAlgorithmsAreResolvedPerKey() {
+        InMemoryHmacKeyProvider provider = new InMemoryHmacKeyProvider();
+        provider.put("uploads", "secret", List.of(MacAlgorithm.HMAC_SHA512, MacAlgorithm.HMAC_SHA256));
+        provider.put("billing", "secret");
+        HmacKeyCache cache = new HmacKeyCache(provider, Duration.ofMinutes(5), 10);
+
+        assertEquals(MacAlgorithm.HMAC_SHA512, cache.resolve("uploads").algorithm());
+        assertEquals(64, cache.resolve("uploads", MacAlgorithm.HMAC_SHA512).current().macLength());
+        assertEquals(MacAlgorithm.HMAC_SHA256, cache.resolve("uploads", MacAlgorithm.HMAC_SHA256).algorithm());
+        assertNull(cache.resolve("uploads", MacAlgorithm.HMAC_SHA384));
+        assertSame(cache.resolve("billing"), cache.resolve("billing", MacAlgorithm.DEFAULT));
+        assertNull(cache.resolve("billing", MacAlgorithm.HMAC_SHA512));
+        assertNull(cache.resolve("unknown", MacAlgorithm.DEFAULT));
+    }
+}
@@ -0,0 +1,38 @@
+package me.dhan.hmacdemo.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HmacMetricsTest {
+
+    @Test
+    public void testRejectionsAreCountedByReason() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HmacMetrics metrics = new HmacMetrics(registry, ObservationRegistry.NOOP, 10);
+
+        metrics.recordRejected(HmacRejection.REPLAYED, "billing");
+        metrics.recordRejected(HmacRejection.UNKNOWN_KEY_ID, null);
+        metrics.recordAccepted("billing");
+
+        assertEquals(1, registry.get("hmac.rejections").tag("reason", "replayed").counter().count());
+        assertEquals(0, registry.get("hmac.rejections").tag("reason", "invalid-signature").counter().count());
+        assertEquals(1, registry.get("hmac.verifications").tags("key.id", "billing", "outcome", "accepted").counter().count());
+        assertEquals(1, registry.get("hmac.verifications").tags("key.id", "unknown", "outcome", "rejected").counter().count());
+    }
+
+    @Test
+    public void testKeyIdTagsAreCapped() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HmacMetrics metrics = new HmacMetrics(registry, ObservationRegistry.NOOP, 2);
+
+        for (int i = 0; i < 5; i++) {
+            metrics.recordAccepted("client-" + i);
+        }
+
+        assertEquals(3, registry.get("hmac.verifications").tags("key.id", "other", "outcome", "accepted").counter().count());
+        assertEquals(3, registry.find("hmac.verifications").tag("outcome", "accepted").counters().size());
+    }
+}
@@ -0,0 +1,142 @@
+package me.dhan.hmacdemo.security;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HmacSignerTest {
+
+    private static final String SECRET = "YourSecretKeyHere123!";
+
+    @Test
+    public void testMatchesStringCanonicalization() throws Exception {
+        String timestamp = "1634567890123";
+        String[] bodies = {null, "", "{\"a\":5,\"b\":3}", "tiếng Việt 😀", "lone \uD800 surrogate", "x".repeat(5000)};
+
+        for (String body : bodies) {
+            String expected = referenceSignature("POST", "/api/demo/sum", "a=5&b=3", timestamp, body);
+
+            assertEquals(expected, HmacUtils.generateHmacSignature("POST", "/api/demo/sum", "a=5&b=3", timestamp, body, SECRET));
+
+            byte[] bodyBytes = body == null ? null : body.getBytes(StandardCharsets.UTF_8);
+            byte[] signature = new HmacSigner(SECRET).sign("POST", "/api/demo/sum", "a=5&b=3", timestamp, bodyBytes);
+            assertEquals(expected, Base64.getEncoder().encodeToString(signature));
+        }
+    }
+
+    @Test
+    public void testStreamedBodyMatchesSingleUpdate() {
+        HmacSigner signer = new HmacSigner(SECRET);
+        byte[] body = "0123456789".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        byte[] expected = signer.sign("POST", "/api/demo/sum", null, "1634567890123", body);
+
+        try (HmacSigner.Session session = signer.begin("POST", "/api/demo/sum", null)) {
+            for (int offset = 0; offset < body.length; offset += 333) {
+                session.update(ByteBuffer.wrap(body, offset, Math.min(333, body.length - offset)));
+            }
+            assertArrayEquals(expected, session.finish("1634567890123"));
+        }
+    }
+
+    @Test
+    public void testFinishIntoCallerBuffer() {
+        HmacSigner signer = new HmacSigner(SECRET);
+        byte[] expected = signer.sign("GET", "/api/demo/info", null, "1634567890123", null);
+
+        byte[] output = new byte[signer.macLength() + 2];
+        try (HmacSigner.Session session = signer.begin("GET", "/api/demo/info", null)) {
+            assertEquals(signer.macLength(), session.finish("1634567890123", output, 2));
+        }
+        assertArrayEquals(expected, Arrays.copyOfRange(output, 2, output.length));
+    }
+
+    @Test
+    public void testDecodeSignatureMatchesBase64() {
+        byte[] mac = new HmacSigner(SECRET).sign("GET", "/api/demo/info", null, "1634567890123", null);
+        String encoded = Base64.getEncoder().encodeToString(mac);
+        byte[] decoded = new byte[mac.length];
+
+        assertTrue(VerificationSession.decodeSignature(encoded, decoded));
+        assertArrayEquals(mac, decoded);
+
+        assertFalse(VerificationSession.decodeSignature(encoded.substring(4), decoded));
+        assertFalse(VerificationSession.decodeSignature(encoded.replace('=', 'A'), decoded));
+        assertFalse(VerificationSession.decodeSignature("*" + encoded.substring(1), decoded));
+        // Non-zero bits after the last byte are not a canonical encoding
+        char last = encoded.charAt(encoded.length() - 2);
+        assertFalse(VerificationSession.decodeSignature(
+                encoded.substring(0, encoded.length() - 2) + (char) (last ^ 1) + "=", decoded));
+    }
+
+    @Test
+    public void testDigestSignatureIsRejectedAsVersion1() {
+        byte[] body = "{\"a\":5,\"b\":3}".getBytes(StandardCharsets.UTF_8);
+        String digest = HmacUtils.computeBodyDigest(body);
+        String signature = HmacUtils.generateDigestSignature("POST", "/api/demo/sum", "", "1634567890123", digest, SECRET);
+        HmacKeyCache.ResolvedKeys keys = new HmacKeyCache(new InMemoryHmacKeyProvider(Map.of("billing", SECRET)),
+                Duration.ofMinutes(5), 10).resolve("billing");
+
+        try (VerificationSession session = new VerificationSession(keys, "POST", "/api/demo/sum", "", digest)) {
+            assertNotNull(session.verify("1634567890123", signature));
+        }
+        // The same signature replayed as version 1 with the digest string as the body
+        byte[] digestBody = digest.getBytes(StandardCharsets.US_ASCII);
+        try (VerificationSession session = new VerificationSession(keys, "POST", "/api/demo/sum", "", null)) {
+            session.update(digestBody, 0, digestBody.length);
+            assertNull(session.verify("1634567890123", signature));
+        }
+    }
+
+    @Test
+    public void testAlgorithmsMatchJca() throws Exception {
+        byte[] message = "POST\n/api/demo/sum\n\n{}\n1634567890123".getBytes(StandardCharsets.UTF_8);
+        for (MacAlgorithm algorithm : MacAlgorithm.values()) {
+            Mac mac = Mac.getInstance(algorithm.getJcaName());
+            mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), algorithm.getJcaName()));
+            byte[] expected = mac.doFinal(message);
+
+            HmacSigner signer = new HmacSigner(SECRET, algorithm);
+            assertEquals(expected.length, signer.macLength());
+            assertArrayEquals(expected, signer.sign("POST", "/api/demo/sum", "", "1634567890123",
+                    "{}".getBytes(StandardCharsets.UTF_8)));
+            assertEquals(algorithm, MacAlgorithm.fromHeader(algorithm.getHeaderValue().toLowerCase()));
+        }
+        assertNull(MacAlgorithm.fromHeader("HMAC-MD5"));
+    }
+
+    @Test
+    public void testFacadeSignsWithTheRightSecretAfterEviction() {
+        // More secrets than the facade caches, each used twice, so early signers are evicted and rebuilt
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i <= HmacUtils.MAX_CACHED_SIGNERS; i++) {
+                String secret = SECRET + i;
+                byte[] expected = new HmacSigner(secret).sign("GET", "/api/demo/info", null, "1634567890123", null);
+                assertEquals(Base64.getEncoder().encodeToString(expected),
+                        HmacUtils.generateHmacSignature("GET", "/api/demo/info", null, "1634567890123", secret));
+            }
+        }
+    }
+
+    private static String referenceSignature(String method, String uri, String query, String timestamp, String body) throws Exception {
+        String data = method + "\n" + uri + "\n" + query + "\n"
+                + (body != null && !body.isEmpty() ? body + "\n" : "")
+                + timestamp;
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return Base64.getEncoder().encodeToString(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,77 @@
+package me.dhan.hmacdemo.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MacOffloadTest {
+
+    @Test
+    public void testRunWaitsForTaskAndPropagatesErrors() throws Exception {
+        MacOffload offload = new MacOffload(1, 1);
+        boolean[] ran = new boolean[1];
+
+        offload.run(() -> ran[0] = true);
+        assertTrue(ran[0]);
+
+        IOException error = assertThrows(IOException.class, () -> offload.run(() -> {
+            throw new IOException("spill file unreadable");
+        }));
+        assertEquals("spill file unreadable", error.getMessage());
+    }
+
+    @Test
+    public void testFullQueueRejectsNewBodies() throws Exception {
+        MacOffload offload = new MacOffload(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch queuedRan = new CountDownLatch(1);
+        Runnable blocking = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        offload.execute(blocking);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertFalse(offload.isSaturated());
+        offload.execute(queuedRan::countDown);
+
+        assertTrue(offload.isSaturated());
+        assertEquals(1, offload.queueDepth());
+        assertEquals(1, offload.activeCount());
+        assertThrows(RejectedExecutionException.class, () -> offload.execute(() -> {
+        }));
+        assertThrows(RejectedExecutionException.class, () -> offload.run(() -> {
+        }));
+
+        release.countDown();
+        assertTrue(queuedRan.await(5, TimeUnit.SECONDS));
+        assertFalse(offload.isSaturated());
+    }
+
+    @Test
+    public void testCloseFinishesQueuedBodiesThenRejects() throws Exception {
+        MacOffload offload = new MacOffload(1, 1);
+        CountDownLatch ran = new CountDownLatch(1);
+        offload.execute(ran::countDown);
+
+        offload.close();
+
+        assertEquals(0, ran.getCount());
+        assertThrows(RejectedExecutionException.class, () -> offload.run(() -> {
+        }));
+        offload.close();
+    }
+}
@@ -0,0 +1,40 @@
+package me.dhan.hmacdemo.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long START = 100 * SECOND;
+
+    @Test
+    public void testAllowsBurstThenRefillsAtRate() {
+        RateLimiter limiter = new RateLimiter(2, 3, 16);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("client", START));
+        }
+        long wait = limiter.tryAcquire("client", START);
+        assertEquals(SECOND / 2, wait);
+        assertEquals(wait, limiter.waitTime("client", START));
+
+        // Half a second later exactly one token is back
+        assertEquals(0, limiter.tryAcquire("client", START + SECOND / 2));
+        assertTrue(limiter.tryAcquire("client", START + SECOND / 2) > 0);
+    }
+
+    @Test
+    public void testCallersHaveSeparateBuckets() {
+        RateLimiter limiter = new RateLimiter(1, 1, 1024);
+
+        assertEquals(0, limiter.tryAcquire("first", START));
+        assertTrue(limiter.tryAcquire("first", START) > 0);
+        assertEquals(0, limiter.waitTime("second", START));
+        assertEquals(0, limiter.tryAcquire("second", START));
+    }
+}
@@ -0,0 +1,47 @@
+package me.dhan.hmacdemo.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReplayCacheTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    public void testRejectsRepeatedFingerprint() {
+        ReplayCache cache = new ReplayCache(Duration.ofMinutes(6), Duration.ofSeconds(10), 100);
+
+        assertEquals(ReplayCache.Result.ACCEPTED, cache.checkAndRecord(42L, NOW));
+        assertEquals(ReplayCache.Result.REPLAYED, cache.checkAndRecord(42L, NOW));
+        assertEquals(ReplayCache.Result.ACCEPTED, cache.checkAndRecord(43L, NOW));
+        assertEquals(ReplayCache.Result.ACCEPTED, cache.checkAndRecord(0L, NOW));
+        assertEquals(ReplayCache.Result.REPLAYED, cache.checkAndRecord(0L, NOW));
+    }
+
+    @Test
+    public void testDropsBucketsOutsideTheWindow() {
+        ReplayCache cache = new ReplayCache(Duration.ofMinutes(6), Duration.ofSeconds(10), 100);
+
+        assertEquals(ReplayCache.Result.ACCEPTED, cache.checkAndRecord(42L, NOW));
+        // The ring holds 37 buckets of 10 seconds; a request one full ring later reuses the slot
+        long later = NOW + Duration.ofSeconds(370).toMillis();
+        assertEquals(ReplayCache.Result.ACCEPTED, cache.checkAndRecord(7L, later));
+        assertEquals(ReplayCache.Result.ACCEPTED, cache.checkAndRecord(42L, later));
+        // Timestamps older than the ring can no longer be checked
+        assertEquals(ReplayCache.Result.EXPIRED, cache.checkAndRecord(99L, NOW));
+    }
+
+    @Test
+    public void testReportsFullBucket() {
+        ReplayCache cache = new ReplayCache(Duration.ofMinutes(6), Duration.ofSeconds(10), 3);
+
+        for (long fingerprint = 1; fingerprint <= 3; fingerprint++) {
+            assertEquals(ReplayCache.Result.ACCEPTED, cache.checkAndRecord(fingerprint, NOW));
+        }
+        assertEquals(ReplayCache.Result.FULL, cache.checkAndRecord(4L, NOW));
+        assertEquals(ReplayCache.Result.REPLAYED, cache.checkAndRecord(2L, NOW));
+    }
+}
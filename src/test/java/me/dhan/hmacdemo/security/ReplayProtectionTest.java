@@ -0,0 +1,131 @@
+package me.dhan.hmacdemo.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ReplayProtectionTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    public void testReplayOnAnotherNodeIsRejected() {
+        ReplayStore store = new LocalReplayStore(newCache());
+        ReplayProtection first = newProtection(store, false);
+        ReplayProtection second = newProtection(store, false);
+
+        assertEquals(ReplayCache.Result.ACCEPTED, first.checkAndRecord(42L, NOW));
+        assertEquals(ReplayCache.Result.REPLAYED, first.checkAndRecord(42L, NOW));
+        assertEquals(ReplayCache.Result.REPLAYED, second.checkAndRecord(42L, NOW));
+        assertEquals(ReplayCache.Result.ACCEPTED, second.checkAndRecord(43L, NOW));
+    }
+
+    @Test
+    public void testUnavailableStoreFailsOpenOrClosed() {
+        ReplayStore failing = (fingerprints, timestamps) -> CompletableFuture.failedFuture(new IllegalStateException("down"));
+
+        assertEquals(ReplayCache.Result.UNAVAILABLE, newProtection(failing, false).checkAndRecord(42L, NOW));
+        assertEquals(ReplayCache.Result.ACCEPTED, newProtection(failing, true).checkAndRecord(42L, NOW));
+    }
+
+    @Test
+    public void testAsyncCheckMatchesBlockingCheck() {
+        ReplayStore store = new LocalReplayStore(newCache());
+        ReplayStore failing = (fingerprints, timestamps) -> CompletableFuture.failedFuture(new IllegalStateException("down"));
+
+        assertEquals(ReplayCache.Result.ACCEPTED, newProtection(store, false).checkAndRecordAsync(42L, NOW).join());
+        assertEquals(ReplayCache.Result.REPLAYED, newProtection(store, false).checkAndRecordAsync(42L, NOW).join());
+        assertEquals(ReplayCache.Result.UNAVAILABLE, newProtection(failing, false).checkAndRecordAsync(42L, NOW).join());
+        assertEquals(ReplayCache.Result.ACCEPTED, newProtection(failing, true).checkAndRecordAsync(42L, NOW).join());
+    }
+
+    @Test
+    public void testRetryAfterUnavailableStoreIsNotAReplay() {
+        LocalReplayStore shared = new LocalReplayStore(newCache());
+        AtomicBoolean down = new AtomicBoolean(true);
+        ReplayStore flaky = (fingerprints, timestamps) -> down.get()
+                ? CompletableFuture.failedFuture(new IllegalStateException("down"))
+                : shared.checkAndRecord(fingerprints, timestamps);
+        ReplayProtection protection = newProtection(flaky, false);
+
+        assertEquals(ReplayCache.Result.UNAVAILABLE, protection.checkAndRecord(42L, NOW));
+        assertEquals(ReplayCache.Result.UNAVAILABLE, protection.checkAndRecordAsync(43L, NOW).join());
+        down.set(false);
+        assertEquals(ReplayCache.Result.ACCEPTED, protection.checkAndRecord(42L, NOW));
+        assertEquals(ReplayCache.Result.ACCEPTED, protection.checkAndRecordAsync(43L, NOW).join());
+
+        // Answered requests are in the near-cache now: replays are rejected even while the store is down
+        down.set(true);
+        assertEquals(ReplayCache.Result.REPLAYED, protection.checkAndRecord(42L, NOW));
+        assertEquals(ReplayCache.Result.REPLAYED, protection.checkAndRecordAsync(43L, NOW).join());
+    }
+
+    @Test
+    public void testTcpStoreFailsCallsTheServerDoesNotAnswer() throws Exception {
+        try (ServerSocket silent = new ServerSocket(0);
+             TcpReplayStore client = new TcpReplayStore(TcpReplayStore.parseAddress("localhost:" + silent.getLocalPort()),
+                     Duration.ofSeconds(1), Duration.ofMillis(200))) {
+            CompletableFuture<ReplayCache.Result[]> result = client.checkAndRecord(new long[]{42L}, new long[]{NOW});
+
+            ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, error.getCause());
+        }
+    }
+
+    @Test
+    public void testTcpStoreFailsCallsOnPartialResponse() throws Exception {
+        try (ServerSocket stalling = new ServerSocket(0);
+             TcpReplayStore client = new TcpReplayStore(TcpReplayStore.parseAddress("localhost:" + stalling.getLocalPort()),
+                     Duration.ofSeconds(1), Duration.ofMillis(200))) {
+            CompletableFuture<ReplayCache.Result[]> result = client.checkAndRecord(new long[]{42L}, new long[]{NOW});
+            try (Socket connection = stalling.accept()) {
+                // Half of the response's length, then nothing
+                connection.getInputStream().readNBytes(4 + 16);
+                connection.getOutputStream().write(new byte[]{0, 0});
+                connection.getOutputStream().flush();
+
+                ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(IOException.class, error.getCause());
+            }
+        }
+    }
+
+    @Test
+    public void testTcpStoreIsSharedBetweenClients() throws Exception {
+        try (TcpReplayStoreServer server = new TcpReplayStoreServer(0, newCache());
+             TcpReplayStore firstClient = newTcpClient(server);
+             TcpReplayStore secondClient = newTcpClient(server)) {
+            server.start();
+            ReplayProtection first = newProtection(firstClient, false);
+            ReplayProtection second = newProtection(secondClient, false);
+
+            assertEquals(ReplayCache.Result.ACCEPTED, first.checkAndRecord(42L, NOW));
+            assertEquals(ReplayCache.Result.REPLAYED, second.checkAndRecord(42L, NOW));
+            assertEquals(ReplayCache.Result.ACCEPTED, second.checkAndRecord(43L, NOW));
+        }
+    }
+
+    private static ReplayCache newCache() {
+        return new ReplayCache(Duration.ofMinutes(6), Duration.ofSeconds(10), 100);
+    }
+
+    private static ReplayProtection newProtection(ReplayStore store, boolean failOpen) {
+        return new ReplayProtection(newCache(), store, Duration.ofSeconds(5), failOpen, 16, 2, HmacMetrics.noop());
+    }
+
+    private static TcpReplayStore newTcpClient(TcpReplayStoreServer server) {
+        return new TcpReplayStore(TcpReplayStore.parseAddress("localhost:" + server.port()), Duration.ofSeconds(1),
+                Duration.ofSeconds(1));
+    }
+}
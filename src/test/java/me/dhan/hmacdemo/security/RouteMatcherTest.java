@@ -0,0 +1,53 @@
+package me.dhan.hmacdemo.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RouteMatcherTest {
+
+    private static final RoutePolicy EXEMPT = new RoutePolicy(true, false, null, null);
+    private static final RoutePolicy DIGEST = new RoutePolicy(false, true, DataSize.ofMegabytes(1), false);
+    private static final RoutePolicy LARGE = new RoutePolicy(false, false, DataSize.ofMegabytes(100), null);
+
+    private final RouteMatcher matcher = RouteMatcher.compile(List.of(
+            new RouteMatcher.Route("/", EXEMPT),
+            new RouteMatcher.Route("/api-docs/**", EXEMPT),
+            new RouteMatcher.Route("/api/**", LARGE),
+            new RouteMatcher.Route("/api/demo/sum/batch", DIGEST)));
+
+    @Test
+    public void testMostSpecificRouteWins() {
+        assertSame(EXEMPT, matcher.match("/"));
+        assertSame(EXEMPT, matcher.match("/api-docs"));
+        assertSame(EXEMPT, matcher.match("/api-docs/swagger-config"));
+        assertSame(DIGEST, matcher.match("/api/demo/sum/batch"));
+        assertSame(LARGE, matcher.match("/api/demo/sum"));
+        assertSame(LARGE, matcher.match("/api/demo/sum/batch/more"));
+        assertSame(LARGE, matcher.match("/api"));
+    }
+
+    @Test
+    public void testOnlyWholeSegmentsMatch() {
+        assertSame(RoutePolicy.DEFAULT, matcher.match("/demo/api-docs"));
+        assertSame(RoutePolicy.DEFAULT, matcher.match("/api-docs-private/keys"));
+        assertSame(RoutePolicy.DEFAULT, matcher.match("/apis"));
+        assertSame(LARGE, matcher.match("/api/demo/sum/batch/"));
+        assertSame(RoutePolicy.DEFAULT, matcher.match("//api-docs"));
+        assertSame(RoutePolicy.DEFAULT, matcher.match("/%61pi-docs"));
+    }
+
+    @Test
+    public void testRejectsMalformedPatterns() {
+        assertThrows(IllegalArgumentException.class,
+                () -> RouteMatcher.compile(List.of(new RouteMatcher.Route("api", EXEMPT))));
+        assertThrows(IllegalArgumentException.class,
+                () -> RouteMatcher.compile(List.of(new RouteMatcher.Route("/api/*/docs", EXEMPT))));
+        assertThrows(IllegalArgumentException.class, () -> RouteMatcher.compile(List.of(
+                new RouteMatcher.Route("/api", EXEMPT), new RouteMatcher.Route("/api", LARGE))));
+    }
+}
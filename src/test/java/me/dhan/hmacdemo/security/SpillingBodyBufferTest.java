@@ -0,0 +1,46 @@
+package me.dhan.hmacdemo.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpillingBodyBufferTest {
+
+    @Test
+    public void testSmallBodyStaysOnHeap() throws Exception {
+        byte[] body = "{\"a\":5,\"b\":3}".getBytes(StandardCharsets.UTF_8);
+
+        try (SpillingBodyBuffer buffer = new SpillingBodyBuffer(64, null)) {
+            buffer.write(body, 0, body.length);
+
+            assertFalse(buffer.isSpilled());
+            assertEquals(body.length, buffer.size());
+            try (InputStream inputStream = buffer.openInputStream()) {
+                assertArrayEquals(body, inputStream.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    public void testLargeBodySpillsToFile() throws Exception {
+        byte[] body = "0123456789".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        try (SpillingBodyBuffer buffer = new SpillingBodyBuffer(256, null)) {
+            for (int offset = 0; offset < body.length; offset += 100) {
+                buffer.write(body, offset, 100);
+            }
+
+            assertTrue(buffer.isSpilled());
+            assertEquals(body.length, buffer.size());
+            try (InputStream inputStream = buffer.openInputStream()) {
+                assertArrayEquals(body, inputStream.readAllBytes());
+            }
+        }
+    }
+}